@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -320,6 +321,56 @@ class CalculatorCommandProcessorTest {
         assertThrows(UnsupportedOperationException.class, () -> snapshot.add(new HistoryEntry(99, "x", "y")));
     }
 
+    @Test
+    void historyLimit_dropsOldestAndRetiresIndex() {
+        CalculatorCommandProcessor limited = new CalculatorCommandProcessor(new CalculatorEngine(), 2);
+        limited.process("1");
+        limited.process("2");
+        limited.process("3");
+        List<HistoryEntry> snapshot = limited.historySnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals(2, snapshot.get(0).index());
+        assertThrows(CalculatorException.class, () -> limited.process("!1"));
+        assertEquals("3", limited.process("!3").outputLines().get(0));
+    }
+
+    @Test
+    void saveState_restoreState_roundTripsHistoryAndVariables() {
+        processor.process("x = 6");
+        processor.process("x * 7");
+        Properties saved = new Properties();
+        processor.saveState(saved);
+
+        CalculatorCommandProcessor restored = new CalculatorCommandProcessor(new CalculatorEngine());
+        restored.restoreState(saved);
+        assertEquals("42", restored.process("!2").outputLines().get(0));
+        assertEquals("6", restored.process("x").outputLines().get(0));
+        assertEquals(4, restored.historySnapshot().get(3).index());
+    }
+
+    // ---- precision mode ----
+
+    @Test
+    void process_precisionCommand_togglesMode() {
+        assertEquals("Precision mode: off", processor.process(":precision").outputLines().get(0));
+        assertEquals("Precision mode: on (34 digits)", processor.process(":precision on").outputLines().get(0));
+        assertEquals("Precision mode: on (50 digits)", processor.process(":precision 50").outputLines().get(0));
+        assertEquals("Precision mode: off", processor.process(":precision off").outputLines().get(0));
+    }
+
+    @Test
+    void process_precisionMode_formatsBigResults() {
+        processor.process(":precision 20");
+        assertEquals("0.33333333333333333333", processor.process("1/3").outputLines().get(0));
+        assertEquals("15511210043330985984000000", processor.process("25!").outputLines().get(0));
+        assertEquals("9.3326215443944152682E+157", processor.process("fact(100)").outputLines().get(0));
+    }
+
+    @Test
+    void process_precisionInvalidArgument_throws() {
+        assertThrows(CalculatorException.class, () -> processor.process(":precision many"));
+    }
+
     // ---- helpLines static method ----
 
     @Test
@@ -327,4 +378,41 @@ class CalculatorCommandProcessorTest {
         List<String> lines = CalculatorCommandProcessor.helpLines();
         assertFalse(lines.isEmpty());
     }
+
+    // ---- line classification ----
+
+    @Test
+    void classify_routesByPrefix() {
+        assertEquals(CalculatorCommandProcessor.LineKind.EMPTY, CalculatorCommandProcessor.classify(""));
+        assertEquals(CalculatorCommandProcessor.LineKind.EXIT, CalculatorCommandProcessor.classify("EXIT"));
+        assertEquals(CalculatorCommandProcessor.LineKind.EXIT, CalculatorCommandProcessor.classify(":Quit"));
+        assertEquals(CalculatorCommandProcessor.LineKind.HISTORY_RECALL, CalculatorCommandProcessor.classify("!3"));
+        assertEquals(CalculatorCommandProcessor.LineKind.META, CalculatorCommandProcessor.classify(":vars"));
+        assertEquals(CalculatorCommandProcessor.LineKind.MEMORY, CalculatorCommandProcessor.classify("mS 5"));
+        assertEquals(CalculatorCommandProcessor.LineKind.MEMORY, CalculatorCommandProcessor.classify("M-\t2"));
+        assertEquals(CalculatorCommandProcessor.LineKind.MEMORY, CalculatorCommandProcessor.classify("mc"));
+    }
+
+    @Test
+    void classify_lookalikes_areExpressions() {
+        assertEquals(CalculatorCommandProcessor.LineKind.EXPRESSION, CalculatorCommandProcessor.classify("exits"));
+        assertEquals(CalculatorCommandProcessor.LineKind.EXPRESSION, CalculatorCommandProcessor.classify("M-5"));
+        assertEquals(CalculatorCommandProcessor.LineKind.EXPRESSION, CalculatorCommandProcessor.classify("MX 1"));
+        assertEquals(CalculatorCommandProcessor.LineKind.EXPRESSION, CalculatorCommandProcessor.classify("max(1, 2)"));
+    }
+
+    @Test
+    void classify_matchesLegacyDispatch() {
+        String[] lines = {"quit", "Exit", ":EXIT", "!", ":help", "MR", "m+ 3", "Mc extra", "MS\u00A05", "1 + 2", "x = 3"};
+        for (String line : lines) {
+            assertEquals(CommandDispatchBenchmark.legacyClassify(line), CalculatorCommandProcessor.classify(line.trim()), line);
+        }
+    }
+
+    @Test
+    void dispatchBenchmark_smallRun_reportsAllLines() {
+        CommandDispatchBenchmark.Report report = CommandDispatchBenchmark.run(2_000);
+        assertEquals(2_000, report.lines());
+        assertTrue(report.replayNanosPerLine() > 0);
+    }
 }
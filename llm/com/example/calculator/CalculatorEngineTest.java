@@ -3,8 +3,23 @@ package com.example.calculator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -146,6 +161,30 @@ class CalculatorEngineTest {
         assertEquals(8.0, engine.evaluate("x ^= 3"));
     }
 
+    @Test
+    void evaluate_compoundAssignmentWithoutSpaces() {
+        assertEquals(7.0, engine.evaluateAllToArray("x=4;x+=3")[1]);
+    }
+
+    @Test
+    void evaluate_variableEqualityComparison_isNotAssignment() {
+        engine.evaluate("x = 3");
+        assertEquals(1.0, engine.evaluate("x == 3"));
+        assertEquals(3.0, engine.getVariablesSnapshot().get("x"));
+    }
+
+    @Test
+    void evaluate_assignmentInsideExpression_throws() {
+        assertThrows(CalculatorException.class, () -> engine.evaluate("1 + (x = 2)"));
+        assertThrows(CalculatorException.class, () -> engine.evaluate("x ="));
+    }
+
+    @Test
+    void evaluate_malformedLaterStatement_appliesNothing() {
+        assertThrows(CalculatorException.class, () -> engine.evaluate("x = 1; y = @"));
+        assertFalse(engine.getVariablesSnapshot().containsKey("x"));
+    }
+
     @Test
     void getVariablesSnapshot_afterAssignment() {
         engine.evaluate("myVar = 42");
@@ -192,6 +231,76 @@ class CalculatorEngineTest {
         assertThrows(CalculatorException.class, () -> engine.deleteVariable("pi"));
     }
 
+    @Test
+    void setVariable_bindsValueForLaterStatements() {
+        engine.setVariable("rate", 0.25);
+        assertEquals(25.0, engine.evaluate("rate * 100"), 1e-12);
+        assertEquals(0.25, engine.getVariablesSnapshot().get("rate"));
+    }
+
+    @Test
+    void setVariable_reservedOrInvalidName_throws() {
+        assertThrows(CalculatorException.class, () -> engine.setVariable("pi", 3));
+        assertThrows(CalculatorException.class, () -> engine.setVariable("sqrt", 3));
+        assertThrows(CalculatorException.class, () -> engine.setVariable("2x", 3));
+        assertThrows(CalculatorException.class, () -> engine.setVariable("x", Double.NaN));
+    }
+
+    @Test
+    void assignment_nonAsciiName_throws() {
+        CalculatorException ex = assertThrows(CalculatorException.class, () -> engine.evaluate("x = 1; \u00e9 = 5"));
+        assertEquals(CalculatorErrorCode.SYNTAX, ex.getErrorCode());
+        assertEquals(7, ex.getPosition());
+        assertThrows(CalculatorException.class, () -> engine.evaluate("caf\u00e9 += 1"));
+        engine.setPrecisionEnabled(true);
+        assertThrows(CalculatorException.class, () -> engine.evaluateAllPrecise("\u00e9 = 5"));
+        assertEquals(1, engine.getVariablesSnapshot().size());
+    }
+
+    @Test
+    void setVariableLimit_rejectsOnlyNewNames() {
+        engine.setVariableLimit(1);
+        engine.evaluate("x = 1");
+        assertThrows(CalculatorException.class, () -> engine.evaluate("y = 2"));
+        assertThrows(CalculatorException.class, () -> engine.setVariable("y", 2));
+        assertEquals(3.0, engine.evaluate("x += 2"));
+        assertFalse(engine.getVariablesSnapshot().containsKey("y"));
+    }
+
+    @Test
+    void setVariableLimit_negative_throws() {
+        assertThrows(CalculatorException.class, () -> engine.setVariableLimit(-1));
+    }
+
+    @Test
+    void estimateRetainedBytes_growsWithPreciseValues() {
+        engine.evaluate("x = 1");
+        long plain = engine.estimateRetainedBytes();
+        engine.setPrecisionEnabled(true);
+        engine.evaluateAllPrecise("big = 3 ^ 2000");
+        assertTrue(engine.estimateRetainedBytes() > plain + 300);
+    }
+
+    @Test
+    void estimateRetainedBytes_trackedIncrementally_matchesRestoredState() {
+        engine.evaluate("x = 1; longer_name = 2; y = 3");
+        engine.setPrecisionEnabled(true);
+        engine.evaluateAllPrecise("big = 3 ^ 500; X = 7 ^ 300; y += 1");
+        engine.setPrecisionEnabled(false);
+        engine.evaluate("big = 4");
+        engine.deleteVariable("longer_name");
+        engine.setVariable("z", 5);
+
+        Properties saved = new Properties();
+        engine.saveState(saved);
+        CalculatorEngine restored = new CalculatorEngine();
+        restored.restoreState(saved);
+        assertEquals(restored.estimateRetainedBytes(), engine.estimateRetainedBytes());
+
+        engine.reset();
+        assertEquals(new CalculatorEngine().estimateRetainedBytes(), engine.estimateRetainedBytes());
+    }
+
     // ---- ans ----
 
     @Test
@@ -274,6 +383,32 @@ class CalculatorEngineTest {
         assertEquals(25.0, results.get(0));
     }
 
+    @Test
+    void evaluateAllToArray_returnsUnboxedResultsPerStatement() {
+        assertArrayEquals(new double[]{3.0, 9.0, 9.0}, engine.evaluateAllToArray("x = 3; x ^ 2; ans"));
+        assertEquals(engine.evaluateAll("1; 2"), Arrays.asList(1.0, 2.0));
+    }
+
+    @Test
+    void evaluateAllToArray_spans_pairStatementsWithResults() {
+        StatementSpans spans = new StatementSpans();
+        double[] results = engine.evaluateAllToArray(" x = 2 ;x * 5", spans);
+        assertEquals(2, spans.size());
+        assertEquals("x = 2", spans.getText(0));
+        assertEquals(1, spans.getStart(0));
+        assertEquals("x * 5", spans.getText(1));
+        assertEquals(10.0, results[1]);
+        engine.evaluateAllPrecise("1; 2; 3", spans);
+        assertEquals(3, spans.size());
+        assertEquals(7, spans.getEnd(2));
+    }
+
+    @Test
+    void evaluateAllToArray_error_throwsAfterApplyingEarlierStatements() {
+        assertThrows(CalculatorException.class, () -> engine.evaluateAllToArray("y = 4; y / 0"));
+        assertEquals(4.0, engine.getVariablesSnapshot().get("y"));
+    }
+
     @Test
     void evaluate_multiStatement_returnsLastResult() {
         assertEquals(4.0, engine.evaluate("x = 2; x * 2"));
@@ -346,16 +481,44 @@ class CalculatorEngineTest {
         assertEquals(15.0, engine.evaluate("sum(1, 2, 3, 4, 5)"));
     }
 
+    @Test
+    void evaluate_sumFunction_largeArgumentCount() {
+        StringBuilder expression = new StringBuilder("sum(");
+        for (int i = 1; i <= 100_000; i++) {
+            expression.append(i == 1 ? "" : ",").append(i);
+        }
+        expression.append(')');
+        assertEquals(5_000_050_000.0, engine.evaluate(expression.toString()));
+    }
+
     @Test
     void evaluate_avgFunction() {
         assertEquals(3.0, engine.evaluate("avg(1, 2, 3, 4, 5)"));
     }
 
+    @Test
+    void evaluate_sampleStatisticsFunctions() {
+        assertEquals(32.0 / 7.0, engine.evaluate("sampvar(2, 4, 4, 4, 5, 5, 7, 9)"), 1e-12);
+        assertEquals(Math.sqrt(32.0 / 7.0), engine.evaluate("sampstd(2, 4, 4, 4, 5, 5, 7, 9)"), 1e-12);
+        assertEquals(0.65625, engine.evaluate("skew(2, 4, 4, 4, 5, 5, 7, 9)"), 1e-12);
+        assertEquals(-0.21875, engine.evaluate("kurt(2, 4, 4, 4, 5, 5, 7, 9)"), 1e-12);
+    }
+
     @Test
     void evaluate_medianFunction() {
         assertEquals(3.0, engine.evaluate("median(5, 1, 3)"));
     }
 
+    @Test
+    void evaluate_percentileFunction() {
+        assertEquals(3.0, engine.evaluate("percentile(50, 5, 1, 3, 2, 4)"));
+    }
+
+    @Test
+    void evaluate_quantilesFunction() {
+        assertEquals(2.0, engine.evaluate("quantiles(1, 4, 5, 1, 3, 2, 4)"));
+    }
+
     @Test
     void evaluate_clampFunction() {
         assertEquals(5.0, engine.evaluate("clamp(10, 0, 5)"));
@@ -371,6 +534,16 @@ class CalculatorEngineTest {
         assertEquals(55.0, engine.evaluate("fib(10)"));
     }
 
+    @Test
+    void evaluate_fibmodFunction() {
+        assertEquals(55.0, engine.evaluate("fibmod(10, 1000)"));
+    }
+
+    @Test
+    void evaluate_lgammaFunction() {
+        assertEquals(Math.log(24.0), engine.evaluate("lgamma(5)"), 1e-12);
+    }
+
     @Test
     void evaluate_isprimeFunction_prime() {
         assertEquals(1.0, engine.evaluate("isprime(17)"));
@@ -481,6 +654,20 @@ class CalculatorEngineTest {
         assertThrows(CalculatorException.class, () -> engine.evaluate("undefinedVar"));
     }
 
+    @Test
+    void evaluate_unknownSymbol_reportsErrorCode() {
+        CalculatorException ex = assertThrows(CalculatorException.class, () -> engine.evaluate("undefinedVar + 1"));
+        assertEquals(CalculatorErrorCode.UNKNOWN_SYMBOL, ex.getErrorCode());
+        assertEquals("Unknown symbol: undefinedVar", ex.getMessage());
+    }
+
+    @Test
+    void evaluate_nonFiniteResult_reportsErrorCode() {
+        CalculatorException ex = assertThrows(CalculatorException.class, () -> engine.evaluate("10 ^ 400"));
+        assertEquals(CalculatorErrorCode.NOT_FINITE, ex.getErrorCode());
+        assertEquals("Expression result is not finite.", ex.getMessage());
+    }
+
     // ---- reset ----
 
     @Test
@@ -502,4 +689,452 @@ class CalculatorEngineTest {
         assertTrue(help.containsKey("sin"));
         assertTrue(help.containsKey("gcd"));
     }
+
+    // ---- precision mode ----
+
+    @Test
+    void evaluateAllPrecise_factorialBeyondDoubleRange() {
+        engine.setPrecisionDigits(10);
+        assertEquals("4.023872601E+2567", engine.evaluateAllPrecise("fact(1000)").get(0).toString());
+    }
+
+    @Test
+    void evaluateAllPrecise_beyondDoubleRange_failsWhenReadAsDouble() {
+        engine.evaluateAllPrecise("big = 1e400; -big");
+        assertEquals(new BigDecimal("1E+400"), engine.evaluateAllPrecise("big").get(0));
+        assertFalse(Double.isInfinite(engine.getVariablesSnapshot().get("big")));
+        engine.setPrecisionEnabled(false);
+        CalculatorException ex = assertThrows(CalculatorException.class, () -> engine.evaluate("big"));
+        assertEquals(CalculatorErrorCode.NOT_FINITE, ex.getErrorCode());
+        assertThrows(CalculatorException.class, () -> engine.evaluate("big += 1"));
+        assertThrows(CalculatorException.class, () -> engine.evaluate("ans"));
+        Properties saved = new Properties();
+        engine.saveState(saved);
+        assertFalse(saved.toString().contains("Infinity"));
+        assertEquals(4.0, engine.evaluate("big = 4"));
+        assertEquals(5.0, engine.evaluate("big + 1"));
+    }
+
+    @Test
+    void evaluateAllPrecise_exactDecimalArithmetic() {
+        assertEquals(0, new BigDecimal("0.3").compareTo(engine.evaluateAllPrecise("0.1 + 0.2").get(0)));
+        assertEquals(BigDecimal.ONE, engine.evaluateAllPrecise("0.1 + 0.2 == 0.3").get(0));
+    }
+
+    @Test
+    void evaluateAllPrecise_variablesKeepFullPrecision() {
+        List<BigDecimal> results = engine.evaluateAllPrecise("x = fact(30); x / fact(28)");
+        assertEquals(0, new BigDecimal("870").compareTo(results.get(1)));
+        assertEquals(2.652528598121911e32, engine.getVariablesSnapshot().get("x"), 1e18);
+    }
+
+    @Test
+    void evaluateAllPrecise_deepNesting_throwsCalculatorException() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            input.append('(');
+        }
+        assertThrows(CalculatorException.class, () -> engine.evaluateAllPrecise(input + "1"));
+        assertEquals(new BigDecimal("-4"), engine.evaluateAllPrecise("-2 ^ 2").get(0));
+    }
+
+    @Test
+    void evaluateAllPrecise_fallsBackToDoubleFunctions() {
+        assertEquals(Math.sin(1.0), engine.evaluateAllPrecise("sin(1)").get(0).doubleValue());
+    }
+
+    @Test
+    void evaluateAllPrecise_divisionByZero_throws() {
+        assertThrows(CalculatorException.class, () -> engine.evaluateAllPrecise("1 / 0"));
+    }
+
+    @Test
+    void setPrecisionDigits_outOfRange_throws() {
+        assertThrows(CalculatorException.class, () -> engine.setPrecisionDigits(0));
+        assertThrows(CalculatorException.class, () -> engine.setPrecisionDigits(CalculatorEngine.MAX_PRECISION_DIGITS + 1));
+    }
+
+    @Test
+    void evaluateAllPrecise_constantsAtMaxPrecision_completeQuickly() {
+        engine.setPrecisionEnabled(true);
+        engine.setPrecisionDigits(CalculatorEngine.MAX_PRECISION_DIGITS);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            assertEquals(CalculatorEngine.MAX_PRECISION_DIGITS, engine.evaluateAllPrecise("pi").get(0).precision());
+            assertEquals(CalculatorEngine.MAX_PRECISION_DIGITS, engine.evaluateAllPrecise("e").get(0).precision());
+        });
+    }
+
+    // ---- published snapshots ----
+
+    @Test
+    void snapshot_versionAdvancesWithWrites() {
+        long before = engine.snapshot().getVersion();
+        engine.evaluate("x = 3");
+        engine.memoryStore(4);
+        EngineSnapshot after = engine.snapshot();
+        assertEquals(before + 2, after.getVersion());
+        assertEquals(3.0, after.getAns());
+        assertEquals(4.0, after.getMemory());
+        assertEquals(3.0, after.getVariables().get("x"));
+    }
+
+    @Test
+    void snapshot_isImmutable() {
+        engine.evaluate("x = 1");
+        Map<String, Double> vars = engine.getVariablesSnapshot();
+        assertThrows(UnsupportedOperationException.class, () -> vars.put("y", 2.0));
+        engine.evaluate("x = 2");
+        assertEquals(1.0, vars.get("x"));
+    }
+
+    @Test
+    void readers_doNotBlockWhileEngineMonitorIsHeld() throws Exception {
+        engine.evaluate("x = 7");
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            synchronized (engine) {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        writer.start();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            locked.await();
+            Future<Double> value = reader.submit(
+                    () -> engine.getAns() + engine.memoryRecall() + engine.getVariablesSnapshot().get("x")
+                            + engine.getConstantsSnapshot().size() + engine.getFunctionsHelp().size());
+            assertTrue(value.get(5, TimeUnit.SECONDS) > 0);
+        } finally {
+            release.countDown();
+            writer.join();
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    void readers_neverSeeHalfAppliedMultiStatementLine() throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> torn = new AtomicReference<>();
+        engine.evaluateAll("a = 0; b = 0");
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                Map<String, Double> vars = engine.getVariablesSnapshot();
+                if (!vars.get("a").equals(vars.get("b"))) {
+                    torn.set(vars.toString());
+                }
+            }
+        });
+        reader.start();
+        for (int i = 1; i <= 2000; i++) {
+            engine.evaluateAll("a = " + i + "; b = " + i);
+        }
+        done.set(true);
+        reader.join();
+        assertNull(torn.get());
+    }
+
+    // ---- fork ----
+
+    @Test
+    void fork_inheritsStateAtForkTime() {
+        engine.evaluate("x = 2");
+        engine.memoryStore(5);
+        engine.setPrecisionDigits(12);
+        CalculatorEngine child = engine.fork();
+        assertEquals(2.0, child.getAns());
+        assertEquals(5.0, child.memoryRecall());
+        assertEquals(2.0, child.getVariablesSnapshot().get("x"));
+        assertEquals(12, child.getPrecisionDigits());
+    }
+
+    @Test
+    void fork_changesDoNotLeakEitherWay() {
+        engine.evaluate("x = 2");
+        CalculatorEngine child = engine.fork();
+        child.evaluate("x = 10; y = 1");
+        engine.evaluate("z = 3");
+        assertEquals(2.0, engine.getVariablesSnapshot().get("x"));
+        assertFalse(engine.getVariablesSnapshot().containsKey("y"));
+        assertEquals(10.0, child.getVariablesSnapshot().get("x"));
+        assertFalse(child.getVariablesSnapshot().containsKey("z"));
+    }
+
+    @Test
+    void fork_seededParent_givesReproducibleForks() {
+        engine.setRandomSeed(99L);
+        double first = engine.fork().evaluate("rand()");
+        engine.setRandomSeed(99L);
+        double second = engine.fork().evaluate("rand()");
+        assertEquals(first, second);
+    }
+
+    @Test
+    void fork_manyForksEvaluateConcurrently() throws Exception {
+        engine.evaluate("base = 100; rate = 0.05");
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Double>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                CalculatorEngine scenario = engine.fork();
+                int shift = i;
+                results.add(pool.submit(() -> scenario.evaluate("rate += " + shift + " / 1000; base * (1 + rate)")));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(100 * (1 + 0.05 + i / 1000.0), results.get(i).get(10, TimeUnit.SECONDS), 1e-9);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0.05, engine.getVariablesSnapshot().get("rate"));
+    }
+
+    // ---- shared function catalog ----
+
+    @Test
+    void functionsHelp_sharedAcrossEngines() {
+        assertSame(engine.getFunctionsHelp(), new CalculatorEngine().getFunctionsHelp());
+        assertSame(BuiltinFunctionCatalog.shared(), BuiltinFunctionCatalog.shared());
+    }
+
+    @Test
+    void sharedCatalog_randomComesFromCallingEngine() {
+        CalculatorEngine other = new CalculatorEngine();
+        engine.setRandomSeed(1L);
+        other.setRandomSeed(1L);
+        double first = engine.evaluate("rand()");
+        other.evaluate("rand()");
+        engine.setRandomSeed(1L);
+        assertEquals(first, engine.evaluate("rand()"));
+        other.setRandomSeed(2L);
+        assertNotEquals(first, other.evaluate("rand()"));
+    }
+
+    // ---- async evaluation ----
+
+    private static final String LARGE_PRIME = "9007199254740881";
+
+    @Test
+    void evaluateAllAsync_completesWithResults() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<List<Double>> future = engine.evaluateAllAsync("x = 3; x * 4", executor);
+            assertEquals(Arrays.asList(3.0, 12.0), future.get(5, TimeUnit.SECONDS));
+            assertEquals(12.0, engine.getAns());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void evaluateAllAsync_error_completesExceptionally() {
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> engine.evaluateAllAsync("1 / 0", Runnable::run).get());
+        assertTrue(thrown.getCause() instanceof CalculatorException);
+    }
+
+    @Test
+    void evaluateAllAsync_cancelledBeforeStart_neverEvaluates() {
+        List<Runnable> queued = new ArrayList<>();
+        CompletableFuture<List<Double>> future = engine.evaluateAllAsync("x = 1", queued::add);
+        assertTrue(future.cancel(true));
+        queued.get(0).run();
+        assertFalse(engine.getVariablesSnapshot().containsKey("x"));
+    }
+
+    @Test
+    void evaluateAllAsync_rejectedByExecutor_completesExceptionally() {
+        CompletableFuture<List<Double>> future = engine.evaluateAllAsync("1", runnable -> {
+            throw new RejectedExecutionException("full");
+        });
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    void evaluateAllAsync_cancelledDuringPrimalityTest_skipsRemainingStatements() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<List<Double>> future = engine.evaluateAllAsync(
+                    "x = 1; isprime(" + LARGE_PRIME + "); isprime(" + LARGE_PRIME + "); x = 2",
+                    task -> executor.execute(() -> {
+                        started.countDown();
+                        task.run();
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(20);
+            assertTrue(future.cancel(true));
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(future.isCancelled());
+            assertNotEquals(2.0, engine.getVariablesSnapshot().get("x"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // ---- evaluation budgets ----
+
+    @Test
+    void setEvaluationBudget_stepLimit_rejectsLargeExpression() {
+        engine.setEvaluationBudget(0, 20);
+        assertEquals(6.0, engine.evaluate("1 + 2 + 3"));
+        StringBuilder sum = new StringBuilder("sum(1");
+        for (int i = 2; i <= 50; i++) {
+            sum.append(", ").append(i);
+        }
+        String input = sum.append(")").toString();
+        assertThrows(EvaluationBudgetExceededException.class, () -> engine.evaluate(input));
+    }
+
+    @Test
+    void setEvaluationBudget_stepLimit_chargesBuiltinLoops() {
+        engine.setEvaluationBudget(0, 1_000);
+        assertThrows(EvaluationBudgetExceededException.class, () -> engine.evaluate("isprime(" + LARGE_PRIME + ")"));
+        assertEquals(1.0, engine.evaluate("isprime(7919)"));
+    }
+
+    @Test
+    void setEvaluationBudget_timeout_stopsLongStatementAndKeepsEarlierOnes() {
+        engine.setEvaluationBudget(20, 0);
+        assertThrows(EvaluationBudgetExceededException.class,
+                () -> engine.evaluate("x = 1; isprime(" + LARGE_PRIME + "); x = 2"));
+        assertEquals(1.0, engine.getVariablesSnapshot().get("x"));
+    }
+
+    @Test
+    void setEvaluationBudget_appliesPerCall() {
+        engine.setEvaluationBudget(0, 10);
+        for (int i = 0; i < 100; i++) {
+            engine.evaluate("1 + 2");
+        }
+    }
+
+    @Test
+    void setEvaluationBudget_precise_chargesFactorial() {
+        engine.setPrecisionEnabled(true);
+        engine.setEvaluationBudget(0, 10_000);
+        assertThrows(EvaluationBudgetExceededException.class, () -> engine.evaluateAllPrecise("fact(100000)"));
+        assertEquals(0, new BigDecimal("3628800").compareTo(engine.evaluateAllPrecise("fact(10)").get(0)));
+    }
+
+    @Test
+    void setEvaluationBudget_precise_chargesConstantSeriesByPrecision() {
+        engine.setPrecisionEnabled(true);
+        engine.setPrecisionDigits(5_000);
+        engine.setEvaluationBudget(0, 1_000);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertThrows(EvaluationBudgetExceededException.class, () -> engine.evaluateAllPrecise("pi"));
+            assertThrows(EvaluationBudgetExceededException.class, () -> engine.evaluateAllPrecise("e"));
+        });
+    }
+
+    @Test
+    void setEvaluationBudget_hugeCombinatorics_reportOverflow() {
+        engine.setEvaluationBudget(0, 2_000);
+        CalculatorException perm = assertThrows(CalculatorException.class, () -> engine.evaluate("perm(20000000, 20000000)"));
+        assertTrue(perm.getMessage().contains("overflowed"), perm.getMessage());
+        CalculatorException comb = assertThrows(CalculatorException.class, () -> engine.evaluate("comb(20000000, 10000000)"));
+        assertTrue(comb.getMessage().contains("overflowed"), comb.getMessage());
+    }
+
+    @Test
+    void setEvaluationBudget_isCopiedByFork() {
+        engine.setEvaluationBudget(50, 100);
+        CalculatorEngine child = engine.fork();
+        assertEquals(50L, child.getEvaluationTimeoutMillis());
+        assertEquals(100L, child.getEvaluationStepLimit());
+    }
+
+    @Test
+    void setEvaluationBudget_negative_throws() {
+        assertThrows(CalculatorException.class, () -> engine.setEvaluationBudget(-1, 0));
+        assertThrows(CalculatorException.class, () -> engine.setEvaluationBudget(0, -1));
+    }
+
+    // ---- tryEvaluateAll ----
+
+    @Test
+    void tryEvaluateAll_allSucceed_recordsValues() {
+        EvaluationResult result = engine.tryEvaluateAll("x = 2; x * 3");
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.size());
+        assertArrayEquals(new double[]{2.0, 6.0}, result.toArray());
+        assertNull(result.getErrorCode(1));
+        assertEquals(-1, result.getErrorPosition(1));
+    }
+
+    @Test
+    void tryEvaluateAll_failingStatement_recordsCodeAndContinues() {
+        EvaluationResult result = engine.tryEvaluateAll("x = 4; x / 0; y; x + 1");
+        assertEquals(4, result.size());
+        assertEquals(2, result.getFailureCount());
+        assertFalse(result.isFailed(0));
+        assertEquals(CalculatorErrorCode.DIVISION_BY_ZERO, result.getErrorCode(1));
+        assertEquals(9, result.getErrorPosition(1));
+        assertTrue(Double.isNaN(result.getValue(1)));
+        assertEquals(CalculatorErrorCode.UNKNOWN_SYMBOL, result.getErrorCode(2));
+        assertEquals("Unknown symbol: y", result.getErrorMessage(2));
+        assertEquals(5.0, result.getValue(3));
+        assertEquals(5.0, engine.getAns());
+    }
+
+    @Test
+    void tryEvaluateAll_tokenizerError_recordsSyntaxPosition() {
+        EvaluationResult result = engine.tryEvaluateAll("2 $ 3");
+        assertEquals(1, result.size());
+        assertEquals(CalculatorErrorCode.SYNTAX, result.getErrorCode(0));
+        assertEquals(2, result.getErrorPosition(0));
+        assertEquals("Unexpected character '$'. (near position 2)", result.getErrorMessage(0));
+    }
+
+    @Test
+    void tryEvaluateAll_compoundAssignmentByZero_recordsOperatorPosition() {
+        EvaluationResult result = engine.tryEvaluateAll("x = 1; x /= 0; x %= 0");
+        assertEquals(CalculatorErrorCode.DIVISION_BY_ZERO, result.getErrorCode(1));
+        assertEquals(9, result.getErrorPosition(1));
+        assertEquals(CalculatorErrorCode.MODULO_BY_ZERO, result.getErrorCode(2));
+        assertEquals(17, result.getErrorPosition(2));
+        assertEquals(1.0, engine.getVariablesSnapshot().get("x"));
+    }
+
+    @Test
+    void tryEvaluateAll_unbalancedParentheses_recordsSyntaxPosition() {
+        EvaluationResult result = engine.tryEvaluateAll("1; (2 + 3");
+        assertEquals(CalculatorErrorCode.SYNTAX, result.getErrorCode(0));
+        assertEquals(3, result.getErrorPosition(0));
+        assertEquals(5, engine.tryEvaluateAll("4 + 1)", result).getErrorPosition(0));
+    }
+
+    @Test
+    void tryEvaluateAll_emptyInput_recordsSingleFailure() {
+        EvaluationResult result = engine.tryEvaluateAll("  ");
+        assertEquals(1, result.size());
+        assertEquals(CalculatorErrorCode.GENERIC, result.getErrorCode(0));
+        assertEquals("Input is empty.", result.getErrorMessage(0));
+    }
+
+    @Test
+    void tryEvaluateAll_reusedResult_isClearedBetweenCalls() {
+        EvaluationResult result = new EvaluationResult();
+        engine.tryEvaluateAll("1; 2; 1 / 0", result);
+        assertSame(result, engine.tryEvaluateAll("7", result));
+        assertEquals(1, result.size());
+        assertTrue(result.isSuccess());
+        assertEquals(7.0, result.getValue(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> result.getValue(1));
+    }
+
+    @Test
+    void tryEvaluateAll_budgetExceeded_stopsEvaluation() {
+        engine.setEvaluationBudget(0, 3);
+        EvaluationResult result = engine.tryEvaluateAll("1; 1 + 2 + 3 + 4; 5");
+        assertEquals(2, result.size());
+        assertEquals(CalculatorErrorCode.BUDGET_EXCEEDED, result.getErrorCode(1));
+    }
 }
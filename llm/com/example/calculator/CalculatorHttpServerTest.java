@@ -0,0 +1,176 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalculatorHttpServerTest {
+
+    private CalculatorHttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = CalculatorHttpServer.start(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private Response request(String method, String body) throws IOException {
+        return request(method, body, CalculatorHttpServer.PATH);
+    }
+
+    private Response request(String method, String body, String path) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.port() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            content.write(chunk, 0, read);
+        }
+        input.close();
+        return new Response(status, new String(content.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static List<?> results(String body) {
+        return (List<?>) ((Map<?, ?>) JsonCodec.parse(body)).get("results");
+    }
+
+    // ---- evaluateBatch ----
+
+    @Test
+    void evaluateBatch_bareArray_returnsValuesInOrder() {
+        String body = CalculatorHttpServer.evaluateBatch(JsonCodec.parse("[\"1 + 2\", \"ans * 10\"]"));
+        assertEquals("{\"results\":[{\"value\":3,\"values\":[3]},{\"value\":30,\"values\":[30]}]}", body);
+    }
+
+    @Test
+    void evaluateBatch_variablesAndMultiStatementItems() {
+        String body = CalculatorHttpServer.evaluateBatch(JsonCodec.parse(
+                "{\"expressions\": [\"x * 2\", \"y = x + 1; y ^ 2\", \"y\"], \"variables\": {\"x\": 3}}"));
+        List<?> results = results(body);
+        assertEquals(6.0, ((Map<?, ?>) results.get(0)).get("value"));
+        assertEquals(Arrays.asList(4.0, 16.0), ((Map<?, ?>) results.get(1)).get("values"));
+        assertEquals(4.0, ((Map<?, ?>) results.get(2)).get("value"));
+    }
+
+    @Test
+    void evaluateBatch_failingItem_reportsErrorAndContinues() {
+        List<?> results = results(CalculatorHttpServer.evaluateBatch(JsonCodec.parse("[\"1 / 0\", 7, \"5\"]")));
+        assertTrue(((Map<?, ?>) results.get(0)).containsKey("error"));
+        assertTrue(((Map<?, ?>) results.get(1)).containsKey("error"));
+        assertEquals(5.0, ((Map<?, ?>) results.get(2)).get("value"));
+    }
+
+    @Test
+    void evaluateBatch_session_usesProcessorModeAndKeepsSessionBudget() {
+        SessionRegistry sessions = new SessionRegistry(60_000, 100, 100);
+        sessions.withSession("s", processor -> processor.process(":precision on"));
+        String body = CalculatorHttpServer.evaluateBatch(
+                JsonCodec.parse("{\"expressions\": [\"1 / 3\", \"2 ^ 2000 > 0\"], \"session\": \"s\"}"), sessions, null);
+        assertTrue(body.startsWith("{\"results\":[{\"value\":0.3333333333333333333333333333333333,"), body);
+        assertEquals(1.0, ((Map<?, ?>) results(body).get(1)).get("value"));
+        sessions.withSession("s", processor -> {
+            assertEquals(2, processor.historySnapshot().size());
+            assertEquals(0L, processor.engine().getEvaluationTimeoutMillis());
+            assertEquals(0L, processor.engine().getEvaluationStepLimit());
+            return null;
+        });
+    }
+
+    @Test
+    void evaluateBatch_invalidShape_throws() {
+        assertThrows(CalculatorException.class, () -> CalculatorHttpServer.evaluateBatch(JsonCodec.parse("42")));
+        assertThrows(CalculatorException.class,
+                () -> CalculatorHttpServer.evaluateBatch(JsonCodec.parse("{\"expressions\": \"1\"}")));
+        assertThrows(CalculatorException.class,
+                () -> CalculatorHttpServer.evaluateBatch(JsonCodec.parse("{\"expressions\": [], \"variables\": {\"pi\": 3}}")));
+        assertThrows(CalculatorException.class,
+                () -> CalculatorHttpServer.evaluateBatch(JsonCodec.parse("{\"expressions\": [], \"variables\": {\"x\": \"3\"}}")));
+    }
+
+    // ---- http ----
+
+    @Test
+    void post_returnsJsonResults() throws IOException {
+        Response response = request("POST", "{\"expressions\": [\"sqrt(x)\"], \"variables\": {\"x\": 16}}");
+        assertEquals(200, response.status);
+        assertEquals("{\"results\":[{\"value\":4,\"values\":[4]}]}", response.body);
+    }
+
+    @Test
+    void post_malformedJson_returns400() throws IOException {
+        Response response = request("POST", "[\"1 + 1\"");
+        assertEquals(400, response.status);
+        assertTrue(((Map<?, ?>) JsonCodec.parse(response.body)).containsKey("error"));
+    }
+
+    @Test
+    void stats_reportsAdmissionCounters() throws IOException {
+        request("POST", "[\"1 + 1\"]");
+        request("POST", "{\"expressions\": [], \"variables\": {\"pi\": 1}}");
+        Response response = request("GET", null, CalculatorHttpServer.STATS_PATH);
+        assertEquals(200, response.status);
+        Map<?, ?> stats = (Map<?, ?>) JsonCodec.parse(response.body);
+        assertEquals(2.0, stats.get("submitted"));
+        assertEquals(1.0, stats.get("completed"));
+        assertEquals(1.0, stats.get("failed"));
+        assertEquals(0.0, stats.get("rejected"));
+    }
+
+    @Test
+    void get_returns405() throws IOException {
+        assertEquals(405, request("GET", null).status);
+    }
+
+    @Test
+    void session_keepsStateAcrossRequests() throws IOException {
+        request("POST", "{\"expressions\": [\"total = 5\"], \"session\": \"cart\"}");
+        Response response = request("POST", "{\"expressions\": [\"total += 2\"], \"session\": \"cart\"}");
+        assertEquals(7.0, ((Map<?, ?>) results(response.body).get(0)).get("value"));
+        Response other = request("POST", "{\"expressions\": [\"total\"], \"session\": \"other\"}");
+        assertTrue(((Map<?, ?>) results(other.body).get(0)).containsKey("error"));
+    }
+
+    @Test
+    void requests_doNotShareState() throws IOException {
+        request("POST", "[\"leak = 1\"]");
+        Response response = request("POST", "[\"leak\"]");
+        assertTrue(((Map<?, ?>) results(response.body).get(0)).containsKey("error"));
+    }
+}
@@ -2,9 +2,11 @@ package com.example.calculator;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -249,6 +251,74 @@ class CalculatorMathTest {
         assertEquals(9.0, CalculatorMath.medianOf(Collections.singletonList(9.0)));
     }
 
+    @Test
+    void medianOf_largeShuffledInput_matchesSortedMedian() {
+        Random random = new Random(42);
+        for (int n = 1; n <= 500; n += 37) {
+            double[] values = new double[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = random.nextInt(50);
+            }
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            double expected = n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2d;
+            assertEquals(expected, CalculatorMath.medianOf(values));
+        }
+    }
+
+    // ---- select ----
+
+    @Test
+    void select_everyRank_matchesSortedOrder() {
+        double[] source = {9.0, -2.0, 7.0, 7.0, 0.0, 3.5, 11.0, -8.0, 7.0, 1.0, 4.0, 6.0, 2.0, 5.0, 8.0, 10.0, 12.0, -1.0, 3.0};
+        double[] sorted = source.clone();
+        Arrays.sort(sorted);
+        for (int k = 0; k < source.length; k++) {
+            assertEquals(sorted[k], CalculatorMath.select(source.clone(), k));
+        }
+    }
+
+    // ---- percentileOf / quantilesOf ----
+
+    @Test
+    void percentileOf_zeroAndHundred_returnMinAndMax() {
+        assertEquals(1.0, CalculatorMath.percentileOf(Arrays.asList(0.0, 4.0, 1.0, 3.0, 2.0)));
+        assertEquals(4.0, CalculatorMath.percentileOf(Arrays.asList(100.0, 4.0, 1.0, 3.0, 2.0)));
+    }
+
+    @Test
+    void percentileOf_betweenRanks_interpolates() {
+        // sorted: [10, 20, 30, 40] → rank 0.25 * 3 = 0.75 → 10 + 0.75 * 10
+        assertEquals(17.5, CalculatorMath.percentileOf(Arrays.asList(25.0, 40.0, 10.0, 30.0, 20.0)));
+    }
+
+    @Test
+    void percentileOf_outOfRange_throws() {
+        assertThrows(CalculatorException.class, () -> CalculatorMath.percentileOf(Arrays.asList(101.0, 1.0)));
+        assertThrows(CalculatorException.class, () -> CalculatorMath.percentileOf(Arrays.asList(-1.0, 1.0)));
+    }
+
+    @Test
+    void quantilesOf_quartiles() {
+        List<Double> data = Arrays.asList(5.0, 1.0, 4.0, 2.0, 3.0);
+        assertEquals(2.0, CalculatorMath.quantilesOf(prepend(1.0, 4.0, data)));
+        assertEquals(3.0, CalculatorMath.quantilesOf(prepend(2.0, 4.0, data)));
+        assertEquals(4.0, CalculatorMath.quantilesOf(prepend(3.0, 4.0, data)));
+    }
+
+    @Test
+    void quantilesOf_kGreaterThanQ_throws() {
+        assertThrows(CalculatorException.class, () -> CalculatorMath.quantilesOf(Arrays.asList(5.0, 4.0, 1.0)));
+    }
+
+    private static List<Double> prepend(double k, double q, List<Double> data) {
+        List<Double> args = new ArrayList<>();
+        args.add(k);
+        args.add(q);
+        args.addAll(data);
+        return args;
+    }
+
     // ---- varianceOf ----
 
     @Test
@@ -350,6 +420,75 @@ class CalculatorMathTest {
         assertThrows(CalculatorException.class, () -> CalculatorMath.fibonacci(-1.0));
     }
 
+    // ---- fibonacciMod ----
+
+    @Test
+    void fibonacciMod_matchesIterativeFibonacci() {
+        long a = 0;
+        long b = 1;
+        for (int n = 0; n <= 92; n++) {
+            assertEquals((double) (a % 1_000_000_007L), CalculatorMath.fibonacciMod(n, 1_000_000_007d));
+            long next = a + b;
+            a = b;
+            b = next;
+        }
+    }
+
+    @Test
+    void fibonacciMod_largeIndex_returnsResidue() {
+        // Pisano period for 10 is 60, so F(10^18) mod 10 == F(10^18 mod 60) mod 10 == F(40) mod 10
+        assertEquals(5.0, CalculatorMath.fibonacciMod(1e18, 10.0));
+    }
+
+    @Test
+    void fibonacciMod_largeModulus_usesExactProducts() {
+        assertEquals((double) (7540113804746346429L % 9007199254740881L), CalculatorMath.fibonacciMod(92.0, 9007199254740881d));
+    }
+
+    @Test
+    void fibonacciMod_modulusOne_returnsZero() {
+        assertEquals(0.0, CalculatorMath.fibonacciMod(12.0, 1.0));
+    }
+
+    @Test
+    void fibonacciMod_zeroModulus_throws() {
+        assertThrows(CalculatorException.class, () -> CalculatorMath.fibonacciMod(5.0, 0.0));
+    }
+
+    @Test
+    void fibonacciMod_negativeIndex_throws() {
+        assertThrows(CalculatorException.class, () -> CalculatorMath.fibonacciMod(-1.0, 10.0));
+    }
+
+    // ---- logGamma ----
+
+    @Test
+    void logGamma_integer_matchesLogFactorial() {
+        assertEquals(Math.log(120.0), CalculatorMath.logGamma(6.0), 1e-12);
+    }
+
+    @Test
+    void logGamma_half_returnsLogSqrtPi() {
+        assertEquals(0.5 * Math.log(Math.PI), CalculatorMath.logGamma(0.5), 1e-12);
+    }
+
+    @Test
+    void logGamma_negativeNonInteger_usesReflection() {
+        // gamma(-0.5) = -2 * sqrt(pi)
+        assertEquals(Math.log(2.0 * Math.sqrt(Math.PI)), CalculatorMath.logGamma(-0.5), 1e-12);
+    }
+
+    @Test
+    void logGamma_beyondFactorialRange_isFinite() {
+        assertEquals(5912.128178488163, CalculatorMath.logGamma(1001.0), 1e-9);
+    }
+
+    @Test
+    void logGamma_nonPositiveInteger_throws() {
+        assertThrows(CalculatorException.class, () -> CalculatorMath.logGamma(0.0));
+        assertThrows(CalculatorException.class, () -> CalculatorMath.logGamma(-3.0));
+    }
+
     // ---- isPrime ----
 
     @Test
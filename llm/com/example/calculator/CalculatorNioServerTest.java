@@ -0,0 +1,180 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalculatorNioServerTest {
+
+    private CalculatorNioServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = CalculatorNioServer.start(0, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    private static final class Session implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader reader;
+        private final OutputStream output;
+
+        Session(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setSoTimeout(10000);
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            output = socket.getOutputStream();
+        }
+
+        void write(String text) throws IOException {
+            output.write(text.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+        }
+
+        List<String> readResponse() throws IOException {
+            List<String> response = new ArrayList<>();
+            String current;
+            do {
+                current = reader.readLine();
+                response.add(current);
+            } while (current != null && current.startsWith(CalculatorServer.OUTPUT_PREFIX));
+            return response;
+        }
+
+        List<String> send(String line) throws IOException {
+            write(line + "\n");
+            return readResponse();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    // ---- protocol ----
+
+    @Test
+    void expression_returnsOutputsThenOk() throws IOException {
+        try (Session session = new Session(server.port())) {
+            List<String> response = session.send("x = 2; x * 3");
+            assertEquals(3, response.size());
+            assertEquals("= 2", response.get(0));
+            assertEquals("= 6", response.get(1));
+            assertEquals("ok", response.get(2));
+        }
+    }
+
+    @Test
+    void invalidExpression_returnsErrorAndKeepsSession() throws IOException {
+        try (Session session = new Session(server.port())) {
+            assertTrue(session.send("1 / 0").get(0).startsWith("error "));
+            assertEquals("= 4", session.send("2 + 2").get(0));
+        }
+    }
+
+    @Test
+    void exit_returnsByeAndCloses() throws IOException {
+        try (Session session = new Session(server.port())) {
+            assertEquals("bye", session.send("exit").get(0));
+            assertNull(session.reader.readLine());
+        }
+    }
+
+    @Test
+    void crlfLineEndings_areAccepted() throws IOException {
+        try (Session session = new Session(server.port())) {
+            session.write("3 * 3\r\n");
+            assertEquals("= 9", session.readResponse().get(0));
+        }
+    }
+
+    @Test
+    void unterminatedLastLine_isAnsweredBeforeClose() throws IOException {
+        try (Session session = new Session(server.port())) {
+            session.write("1 + 1\n6 * 7");
+            session.socket.shutdownOutput();
+            assertEquals("= 2", session.readResponse().get(0));
+            List<String> response = session.readResponse();
+            assertEquals("= 42", response.get(0));
+            assertEquals("ok", response.get(1));
+            assertNull(session.reader.readLine());
+        }
+    }
+
+    // ---- pipelining ----
+
+    @Test
+    void pipelinedRequests_answeredInOrder() throws IOException {
+        try (Session session = new Session(server.port())) {
+            StringBuilder batch = new StringBuilder("n = 0\n");
+            for (int i = 1; i <= 200; i++) {
+                batch.append("n = n + 1\n");
+            }
+            session.write(batch.toString());
+            assertEquals("= 0", session.readResponse().get(0));
+            for (int i = 1; i <= 200; i++) {
+                assertEquals("= " + i, session.readResponse().get(0));
+            }
+        }
+    }
+
+    @Test
+    void requestSplitAcrossWrites_isReassembled() throws IOException {
+        try (Session session = new Session(server.port())) {
+            session.write("12 +");
+            session.write(" 30\n5");
+            session.write(" * 2\n");
+            assertEquals("= 42", session.readResponse().get(0));
+            assertEquals("= 10", session.readResponse().get(0));
+        }
+    }
+
+    @Test
+    void pipelinedExit_dropsLaterRequests() throws IOException {
+        try (Session session = new Session(server.port())) {
+            session.write("1 + 1\nexit\n2 + 2\n");
+            assertEquals("= 2", session.readResponse().get(0));
+            assertEquals("bye", session.readResponse().get(0));
+            assertNull(session.reader.readLine());
+        }
+    }
+
+    @Test
+    void sessions_haveIndependentState() throws IOException {
+        try (Session first = new Session(server.port());
+             Session second = new Session(server.port());
+             Session third = new Session(server.port())) {
+            first.send("x = 5");
+            third.send("x = 7");
+            assertTrue(second.send("x").get(0).startsWith("error "));
+            assertEquals("= 5", first.send("x").get(0));
+            assertEquals("= 7", third.send("x").get(0));
+        }
+    }
+
+    // ---- load client ----
+
+    @Test
+    void loadClient_completesAllSessions() throws Exception {
+        CalculatorLoadClient.Report report = CalculatorLoadClient.run(server.port(), 40, 4);
+        assertEquals(40, report.sessions());
+        assertEquals(0, report.failures());
+    }
+}
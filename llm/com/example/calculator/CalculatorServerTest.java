@@ -0,0 +1,125 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalculatorServerTest {
+
+    private CalculatorServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = CalculatorServer.start(0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    private static final class Session implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader reader;
+        private final OutputStream output;
+
+        Session(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            output = socket.getOutputStream();
+        }
+
+        List<String> send(String line) throws IOException {
+            output.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            output.flush();
+            List<String> response = new ArrayList<>();
+            String current;
+            do {
+                current = reader.readLine();
+                response.add(current);
+            } while (current != null && current.startsWith(CalculatorServer.OUTPUT_PREFIX));
+            return response;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    // ---- protocol ----
+
+    @Test
+    void expression_returnsOutputsThenOk() throws IOException {
+        try (Session session = new Session(server.port())) {
+            List<String> response = session.send("x = 2; x * 3");
+            assertEquals(3, response.size());
+            assertEquals("= 2", response.get(0));
+            assertEquals("= 6", response.get(1));
+            assertEquals("ok", response.get(2));
+        }
+    }
+
+    @Test
+    void invalidExpression_returnsError() throws IOException {
+        try (Session session = new Session(server.port())) {
+            List<String> response = session.send("1 / 0");
+            assertEquals(1, response.size());
+            assertTrue(response.get(0).startsWith("error "));
+            assertEquals("= 4", session.send("2 + 2").get(0));
+        }
+    }
+
+    @Test
+    void respond_unexpectedRuntimeException_writesErrorLine() throws IOException {
+        CalculatorEngine failing = new CalculatorEngine() {
+            @Override
+            public synchronized double[] evaluateAllToArray(String statement, StatementSpans spans) {
+                throw new IllegalStateException("engine broke");
+            }
+        };
+        StringWriter response = new StringWriter();
+        assertTrue(CalculatorServer.respond(new CalculatorCommandProcessor(failing), "1 + 1", response));
+        assertEquals("error engine broke\n", response.toString());
+    }
+
+    @Test
+    void exit_returnsByeAndCloses() throws IOException {
+        try (Session session = new Session(server.port())) {
+            assertEquals("bye", session.send("exit").get(0));
+            assertNull(session.reader.readLine());
+        }
+    }
+
+    @Test
+    void sessions_haveIndependentState() throws IOException {
+        try (Session first = new Session(server.port()); Session second = new Session(server.port())) {
+            first.send("x = 5");
+            assertTrue(second.send("x").get(0).startsWith("error "));
+            assertEquals("= 5", first.send("x").get(0));
+        }
+    }
+
+    // ---- load client ----
+
+    @Test
+    void loadClient_completesAllSessions() throws Exception {
+        CalculatorLoadClient.Report report = CalculatorLoadClient.run(server.port(), 40, 4);
+        assertEquals(40, report.sessions());
+        assertEquals(0, report.failures());
+        assertTrue(report.percentileMillis(99) > 0);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationCoalescerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final EvaluationCoalescer coalescer = new EvaluationCoalescer(1_000, 16, clock::get);
+
+    // Parks inside evaluateAllToArray until released, so a second caller arrives while the first is in flight.
+    private static final class GatedEngine extends CalculatorEngine {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public synchronized double[] evaluateAllToArray(String statement) {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return super.evaluateAllToArray(statement);
+        }
+    }
+
+    // ---- pureKey ----
+
+    @Test
+    void pureKey_literalsConstantsAndPureFunctions_qualify() {
+        assertNotNull(coalescer.pureKey("comb(60, 30) * pct(3, 7)"));
+        assertNotNull(coalescer.pureKey("pi * 2; sqrt(16)"));
+        assertEquals(coalescer.pureKey("1+2"), coalescer.pureKey("  1 +   2 "));
+        assertNotEquals(coalescer.pureKey("1+2"), coalescer.pureKey("1+3"));
+    }
+
+    @Test
+    void pureKey_stateOrRandomness_disqualifies() {
+        assertNull(coalescer.pureKey("x + 1"));
+        assertNull(coalescer.pureKey("ans * 2"));
+        assertNull(coalescer.pureKey("memory"));
+        assertNull(coalescer.pureKey("rand()"));
+        assertNull(coalescer.pureKey("x = 3"));
+        assertNull(coalescer.pureKey("1; y += 2"));
+        assertNull(coalescer.pureKey("nosuch(1)"));
+        assertNull(coalescer.pureKey("   "));
+        assertNull(coalescer.pureKey(" ; ;"));
+        assertNull(coalescer.pureKey("pi = 3"));
+    }
+
+    // ---- cache ----
+
+    @Test
+    void evaluateAllToArray_repeatWithinTtl_hitsCacheAndUpdatesAns() {
+        CalculatorEngine first = new CalculatorEngine();
+        CalculatorEngine second = new CalculatorEngine();
+        assertEquals(118264581564861424.0, coalescer.evaluateAllToArray(first, "comb(60, 30)")[0]);
+        assertEquals(118264581564861424.0, coalescer.evaluateAllToArray(second, "comb(60, 30)")[0]);
+        assertEquals(1L, coalescer.evaluationCount());
+        assertEquals(1L, coalescer.cacheHitCount());
+        assertEquals(118264581564861424.0, second.getAns());
+    }
+
+    @Test
+    void evaluateAllToArray_afterTtl_evaluatesAgain() {
+        CalculatorEngine engine = new CalculatorEngine();
+        coalescer.evaluateAllToArray(engine, "2 ^ 10");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+        coalescer.evaluateAllToArray(engine, "2 ^ 10");
+        assertEquals(2L, coalescer.evaluationCount());
+        assertEquals(0L, coalescer.cacheHitCount());
+    }
+
+    @Test
+    void evaluateAllToArray_impureInput_bypassesCache() {
+        CalculatorEngine engine = new CalculatorEngine();
+        coalescer.evaluateAllToArray(engine, "x = 2");
+        assertEquals(4.0, coalescer.evaluateAllToArray(engine, "x * 2")[0]);
+        assertEquals(0L, coalescer.evaluationCount());
+        assertEquals(0, coalescer.cacheSize());
+    }
+
+    @Test
+    void evaluateAllToArray_precisionEnabled_bypassesCache() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setPrecisionEnabled(true);
+        coalescer.evaluateAllToArray(engine, "1 + 1");
+        assertEquals(0L, coalescer.evaluationCount());
+    }
+
+    @Test
+    void evaluateAllToArray_errors_areNotCached() {
+        CalculatorEngine engine = new CalculatorEngine();
+        assertThrows(CalculatorException.class, () -> coalescer.evaluateAllToArray(engine, "1 / 0"));
+        assertThrows(CalculatorException.class, () -> coalescer.evaluateAllToArray(engine, "1 / 0"));
+        assertEquals(2L, coalescer.evaluationCount());
+        assertEquals(0, coalescer.cacheSize());
+    }
+
+    @Test
+    void evaluateAllToArray_fullCache_stillAnswers() {
+        EvaluationCoalescer tiny = new EvaluationCoalescer(1_000, 1, clock::get);
+        CalculatorEngine engine = new CalculatorEngine();
+        tiny.evaluateAllToArray(engine, "1 + 1");
+        assertEquals(5.0, tiny.evaluateAllToArray(engine, "2 + 3")[0]);
+        assertEquals(1, tiny.cacheSize());
+    }
+
+    // ---- single flight ----
+
+    @Test
+    void evaluateAllToArray_concurrentIdenticalInput_sharesOneEvaluation() throws Exception {
+        GatedEngine leaderEngine = new GatedEngine();
+        CompletableFuture<double[]> leader = CompletableFuture.supplyAsync(
+                () -> coalescer.evaluateAllToArray(leaderEngine, "fact(20) / fact(18)"));
+        assertTrue(leaderEngine.entered.await(5, TimeUnit.SECONDS));
+
+        CalculatorEngine followerEngine = new CalculatorEngine();
+        CompletableFuture<double[]> follower = CompletableFuture.supplyAsync(
+                () -> coalescer.evaluateAllToArray(followerEngine, "fact(20)/fact(18)"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.coalescedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        leaderEngine.release.countDown();
+
+        assertEquals(380.0, leader.get(5, TimeUnit.SECONDS)[0]);
+        assertEquals(380.0, follower.get(5, TimeUnit.SECONDS)[0]);
+        assertEquals(1L, coalescer.evaluationCount());
+        assertEquals(1L, coalescer.coalescedCount());
+        assertEquals(380.0, followerEngine.getAns());
+    }
+
+    @Test
+    void evaluateAllToArray_leaderFails_followerSeesSameError() throws Exception {
+        GatedEngine leaderEngine = new GatedEngine();
+        CompletableFuture<double[]> leader = CompletableFuture.supplyAsync(
+                () -> coalescer.evaluateAllToArray(leaderEngine, "1 / 0"));
+        assertTrue(leaderEngine.entered.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<double[]> follower = CompletableFuture.supplyAsync(
+                () -> coalescer.evaluateAllToArray(new CalculatorEngine(), "1/0"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.coalescedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        leaderEngine.release.countDown();
+
+        Throwable leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause();
+        Throwable followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause();
+        assertEquals(1L, coalescer.coalescedCount());
+        assertSame(leaderError, followerError);
+        assertEquals(CalculatorErrorCode.DIVISION_BY_ZERO, ((CalculatorException) followerError).getErrorCode());
+    }
+
+    @Test
+    void constructor_negativeSettings_throw() {
+        assertThrows(CalculatorException.class, () -> new EvaluationCoalescer(-1, 1));
+        assertThrows(CalculatorException.class, () -> new EvaluationCoalescer(1, -1));
+    }
+}
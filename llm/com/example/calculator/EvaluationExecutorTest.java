@@ -0,0 +1,140 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationExecutorTest {
+
+    private EvaluationExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    private static CompletableFuture<EvaluationExecutor.Outcome<Double>> blockUntil(
+            EvaluationExecutor executor, CountDownLatch started, CountDownLatch release) {
+        return executor.submit(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return 1.0;
+        });
+    }
+
+    // ---- outcomes ----
+
+    @Test
+    void submit_successfulEvaluation_completes() throws Exception {
+        executor = new EvaluationExecutor(2, 4, 1_000);
+        CalculatorEngine engine = new CalculatorEngine();
+        EvaluationExecutor.Outcome<Double> outcome = executor.submit(() -> engine.evaluate("6 * 7")).get(5, TimeUnit.SECONDS);
+        assertEquals(EvaluationExecutor.Status.COMPLETED, outcome.status());
+        assertEquals(42.0, outcome.value());
+        assertEquals(1L, executor.completedCount());
+    }
+
+    @Test
+    void submit_evaluationError_reportsFailure() throws Exception {
+        executor = new EvaluationExecutor(1, 4, 1_000);
+        CalculatorEngine engine = new CalculatorEngine();
+        EvaluationExecutor.Outcome<Double> outcome = executor.submit(() -> engine.evaluate("1 / 0")).get(5, TimeUnit.SECONDS);
+        assertEquals(EvaluationExecutor.Status.FAILED, outcome.status());
+        assertTrue(outcome.failure() instanceof CalculatorException);
+        assertNotNull(outcome.error());
+        assertEquals(1L, executor.failedCount());
+    }
+
+    @Test
+    void submit_evaluationThrowsError_reportsFailure() throws Exception {
+        executor = new EvaluationExecutor(1, 4, 1_000);
+        EvaluationExecutor.Outcome<Double> outcome = executor.<Double>submit(() -> {
+            throw new AssertionError("boom");
+        }).get(5, TimeUnit.SECONDS);
+        assertEquals(EvaluationExecutor.Status.FAILED, outcome.status());
+        assertTrue(outcome.failure() instanceof AssertionError);
+        assertEquals("boom", outcome.error());
+        assertEquals(1L, executor.failedCount());
+    }
+
+    @Test
+    void constructor_nonPositiveLimits_throw() {
+        assertThrows(CalculatorException.class, () -> new EvaluationExecutor(0, 1, 1));
+        assertThrows(CalculatorException.class, () -> new EvaluationExecutor(1, 0, 1));
+        assertThrows(CalculatorException.class, () -> new EvaluationExecutor(1, 1, 0));
+    }
+
+    // ---- admission ----
+
+    @Test
+    void submit_queueFull_rejectsImmediately() throws Exception {
+        executor = new EvaluationExecutor(1, 1, 5_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<EvaluationExecutor.Outcome<Double>> running = blockUntil(executor, started, release);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<EvaluationExecutor.Outcome<Double>> queued = executor.submit(() -> 2.0);
+        CompletableFuture<EvaluationExecutor.Outcome<Double>> overflow = executor.submit(() -> 3.0);
+
+        assertTrue(overflow.isDone());
+        assertEquals(EvaluationExecutor.Status.REJECTED, overflow.get().status());
+        assertEquals(1, executor.queuedCount());
+        assertEquals(1L, executor.rejectedCount());
+
+        release.countDown();
+        assertEquals(EvaluationExecutor.Status.COMPLETED, running.get(5, TimeUnit.SECONDS).status());
+        assertEquals(2.0, queued.get(5, TimeUnit.SECONDS).value());
+        assertEquals(3L, executor.submittedCount());
+    }
+
+    @Test
+    void submit_waitingPastDeadline_expiresWithoutRunning() throws Exception {
+        executor = new EvaluationExecutor(1, 4, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        blockUntil(executor, started, release);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        boolean[] ran = new boolean[1];
+        CompletableFuture<EvaluationExecutor.Outcome<Double>> stale = executor.submit(() -> {
+            ran[0] = true;
+            return 2.0;
+        });
+
+        EvaluationExecutor.Outcome<Double> outcome = stale.get(5, TimeUnit.SECONDS);
+        assertEquals(EvaluationExecutor.Status.EXPIRED, outcome.status());
+        assertEquals(0, executor.queuedCount());
+        assertEquals(1L, executor.expiredCount());
+
+        release.countDown();
+        assertEquals(3.0, executor.submit(() -> 3.0).get(5, TimeUnit.SECONDS).value());
+        assertFalse(ran[0]);
+    }
+
+    @Test
+    void close_queuedTasks_areRejected() throws Exception {
+        executor = new EvaluationExecutor(1, 4, 5_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        blockUntil(executor, started, release);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<EvaluationExecutor.Outcome<Double>> queued = executor.submit(() -> 2.0);
+
+        executor.close();
+
+        EvaluationExecutor.Outcome<Double> outcome = queued.get(5, TimeUnit.SECONDS);
+        assertEquals(EvaluationExecutor.Status.REJECTED, outcome.status());
+        assertEquals(1L, executor.rejectedCount());
+        release.countDown();
+    }
+}
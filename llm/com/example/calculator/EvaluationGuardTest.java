@@ -0,0 +1,131 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationGuardTest {
+
+    private static final double LARGE_PRIME = 9007199254740881d;
+
+    private static double[] ones(int length) {
+        double[] values = new double[length];
+        Arrays.fill(values, 1d);
+        return values;
+    }
+
+    // ---- installation ----
+
+    @Test
+    void checkpoint_withoutGuard_isNoOp() {
+        assertNull(EvaluationGuard.current());
+        EvaluationGuard.checkpoint();
+    }
+
+    @Test
+    void run_installsAndRestoresGuard() {
+        EvaluationGuard outer = new EvaluationGuard(() -> false);
+        EvaluationGuard inner = new EvaluationGuard(() -> false);
+        outer.run(() -> {
+            assertSame(outer, EvaluationGuard.current());
+            inner.run(() -> {
+                assertSame(inner, EvaluationGuard.current());
+                return null;
+            });
+            assertSame(outer, EvaluationGuard.current());
+            return null;
+        });
+        assertNull(EvaluationGuard.current());
+    }
+
+    @Test
+    void run_cancelledGuard_restoresAfterThrow() {
+        EvaluationGuard guard = new EvaluationGuard(() -> true);
+        assertThrows(CancellationException.class, () -> guard.run(() -> {
+            EvaluationGuard.checkpoint();
+            return null;
+        }));
+        assertNull(EvaluationGuard.current());
+    }
+
+    // ---- checkpoints ----
+
+    @Test
+    void isPrime_cancelled_stopsEarly() {
+        EvaluationGuard guard = new EvaluationGuard(() -> true);
+        assertThrows(CancellationException.class, () -> guard.run(() -> CalculatorMath.isPrime(LARGE_PRIME)));
+        assertTrue(CalculatorMath.isPrime(7919));
+    }
+
+    @Test
+    void parallelReduction_cancelled_stopsOnWorkers() {
+        EvaluationGuard guard = new EvaluationGuard(() -> true);
+        double[] values = ones(ParallelReduction.PARALLEL_THRESHOLD * 4);
+        assertThrows(CancellationException.class, () -> guard.run(
+                () -> ParallelReduction.reduce(ParallelReduction.Operation.SUM, values, new ForkJoinPool(2))));
+    }
+
+    @Test
+    void runningStatistics_cancelledMidway_stops() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        EvaluationGuard guard = new EvaluationGuard(cancelled::get);
+        double[] values = ones(100_000);
+        assertEquals(100_000d, guard.run(() -> RunningStatistics.of(values).sum()));
+        cancelled.set(true);
+        assertThrows(CancellationException.class, () -> guard.run(() -> RunningStatistics.of(values)));
+    }
+
+    @Test
+    void smallInputs_neverReachCheckpoint() {
+        EvaluationGuard guard = new EvaluationGuard(() -> true);
+        assertEquals(3d, guard.run(() -> RunningStatistics.of(ones(3)).sum()));
+        assertTrue(guard.run(() -> CalculatorMath.isPrime(97)));
+    }
+
+    // ---- budgets ----
+
+    @Test
+    void charge_pastStepLimit_throwsBudgetException() {
+        EvaluationGuard guard = new EvaluationGuard(null, EvaluationGuard.UNLIMITED, 10);
+        guard.charge(10);
+        assertEquals(10L, guard.stepsUsed());
+        assertThrows(EvaluationBudgetExceededException.class, () -> guard.charge(1));
+    }
+
+    @Test
+    void check_pastDeadline_throwsBudgetException() throws InterruptedException {
+        EvaluationGuard guard = new EvaluationGuard(null, 1, EvaluationGuard.UNLIMITED);
+        Thread.sleep(5);
+        assertThrows(EvaluationBudgetExceededException.class, guard::check);
+    }
+
+    @Test
+    void charge_smallSteps_readsClockOnlyAtIntervals() throws InterruptedException {
+        EvaluationGuard guard = new EvaluationGuard(null, 1, EvaluationGuard.UNLIMITED);
+        Thread.sleep(5);
+        guard.charge(1);
+        assertThrows(EvaluationBudgetExceededException.class, () -> {
+            for (int i = 0; i < 2_048; i++) {
+                guard.charge(1);
+            }
+        });
+    }
+
+    @Test
+    void withBudget_keepsOuterCancellation() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        EvaluationGuard outer = new EvaluationGuard(cancelled::get);
+        outer.run(() -> {
+            EvaluationGuard inner = EvaluationGuard.withBudget(EvaluationGuard.UNLIMITED, 100);
+            inner.charge(1);
+            cancelled.set(true);
+            assertThrows(CancellationException.class, () -> inner.charge(1));
+            return null;
+        });
+    }
+}
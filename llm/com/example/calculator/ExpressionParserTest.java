@@ -102,6 +102,34 @@ class ExpressionParserTest {
         assertEquals(20.0, parse("(2 + 3) * 4"));
     }
 
+    @Test
+    void parse_unaryMinus_bindsLooserThanPower() {
+        assertEquals(-4.0, parse("-2 ^ 2"));
+    }
+
+    @Test
+    void parse_negativeExponent() {
+        assertEquals(0.125, parse("2 ^ -3"));
+        assertEquals(0.5, parse("2 ^ -3 * 4"));
+    }
+
+    @Test
+    void parse_power_rightAssociative() {
+        assertEquals(512.0, parse("2 ^ 3 ^ 2"));
+    }
+
+    @Test
+    void parse_factorial_bindsTighterThanPowerAndUnary() {
+        assertEquals(64.0, parse("2 ^ 3!"));
+        assertEquals(-6.0, parse("-3!"));
+    }
+
+    @Test
+    void parse_subtraction_leftAssociative() {
+        assertEquals(-4.0, parse("10 - 4 - 10"));
+        assertEquals(1.0, parse("1 < 2 == 1 && 3 > 2 || 0"));
+    }
+
     // ---- comparison operators ----
 
     @Test
@@ -178,6 +206,15 @@ class ExpressionParserTest {
         assertThrows(CalculatorException.class, () -> parse("5 % 0"));
     }
 
+    @Test
+    void parse_divisionByZero_carriesCodeAndPositionWithoutStackTrace() {
+        CalculatorException ex = assertThrows(CalculatorException.class, () -> parse("1 + 4 / 0"));
+        assertEquals(CalculatorErrorCode.DIVISION_BY_ZERO, ex.getErrorCode());
+        assertEquals(6, ex.getPosition());
+        assertEquals(0, ex.getStackTrace().length);
+        assertEquals("Division by zero. (near position 6)", ex.getMessage());
+    }
+
     // ---- symbol resolver ----
 
     @Test
@@ -260,6 +297,23 @@ class ExpressionParserTest {
         assertThrows(CalculatorException.class, () -> parse(""));
     }
 
+    @Test
+    void parse_syntaxError_messageIncludesPosition() {
+        CalculatorException ex = assertThrows(CalculatorException.class, () -> parse("(3 + 4"));
+        assertEquals(CalculatorErrorCode.SYNTAX, ex.getErrorCode());
+        assertEquals(6, ex.getPosition());
+        assertEquals("Missing ')' to close expression. (near position 6)", ex.getMessage());
+    }
+
+    @Test
+    void plainException_isGenericWithoutPosition() {
+        CalculatorException ex = new CalculatorException("boom");
+        assertEquals(CalculatorErrorCode.GENERIC, ex.getErrorCode());
+        assertEquals(-1, ex.getPosition());
+        assertEquals("boom", ex.getMessage());
+        assertTrue(ex.getStackTrace().length > 0);
+    }
+
     // ---- scientific notation ----
 
     @Test
@@ -276,4 +330,65 @@ class ExpressionParserTest {
     void parse_invalidExponent_throws() {
         assertThrows(CalculatorException.class, () -> parse("1e"));
     }
+
+    // ---- nesting depth ----
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    void parse_deepParentheses_throwsCalculatorException() {
+        String input = repeat("(", 5000) + "1" + repeat(")", 5000);
+        CalculatorException ex = assertThrows(CalculatorException.class, () -> parse(input));
+        assertTrue(ex.getMessage().contains("nests too deeply"));
+    }
+
+    @Test
+    void parse_longUnaryChain_throwsCalculatorException() {
+        assertThrows(CalculatorException.class, () -> parse(repeat("-", 100_000) + "1"));
+    }
+
+    @Test
+    void parse_nestingWithinLimit_evaluates() {
+        assertEquals(1.0, parse(repeat("(", 900) + "1" + repeat(")", 900)));
+        assertEquals(3000.0, parse("1" + repeat(" + 1", 2999)));
+    }
+
+    @Test
+    void parse_customMaxDepth_enforced() {
+        ExpressionParser shallow = new ExpressionParser(
+                "((1))", ExpressionParserTest::noSymbol, ExpressionParserTest::noFunction, 1);
+        assertThrows(CalculatorException.class, shallow::parse);
+        ExpressionParser enough = new ExpressionParser(
+                "((1))", ExpressionParserTest::noSymbol, ExpressionParserTest::noFunction, 2);
+        assertEquals(1.0, enough.parse());
+    }
+
+    // ---- tokenizer ----
+
+    @Test
+    void tokenize_assignmentsAndSemicolons() {
+        java.util.List<ExpressionParser.TokenType> types = new java.util.ArrayList<>();
+        for (ExpressionParser.Token token : ExpressionParser.tokenize("x+=1;y^=2==z=3")) {
+            types.add(token.type);
+        }
+        assertEquals(java.util.Arrays.asList(
+                ExpressionParser.TokenType.IDENTIFIER, ExpressionParser.TokenType.PLUS_ASSIGN,
+                ExpressionParser.TokenType.NUMBER, ExpressionParser.TokenType.SEMICOLON,
+                ExpressionParser.TokenType.IDENTIFIER, ExpressionParser.TokenType.CARET_ASSIGN,
+                ExpressionParser.TokenType.NUMBER, ExpressionParser.TokenType.EQUAL_EQUAL,
+                ExpressionParser.TokenType.IDENTIFIER, ExpressionParser.TokenType.ASSIGN,
+                ExpressionParser.TokenType.NUMBER, ExpressionParser.TokenType.EOF), types);
+    }
+
+    @Test
+    void parse_assignmentOrSemicolonInExpression_throws() {
+        assertThrows(CalculatorException.class, () -> parse("1 = 2"));
+        assertThrows(CalculatorException.class, () -> parse("1; 2"));
+    }
 }
@@ -0,0 +1,82 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCodecTest {
+
+    // ---- parse ----
+
+    @Test
+    void parse_objectWithNestedValues() {
+        Object value = JsonCodec.parse(" {\"a\": [1, -2.5e1, \"x\"], \"b\": {\"c\": true, \"d\": null}} ");
+        Map<?, ?> object = (Map<?, ?>) value;
+        assertEquals(Arrays.asList(1.0, -25.0, "x"), object.get("a"));
+        Map<?, ?> inner = (Map<?, ?>) object.get("b");
+        assertEquals(Boolean.TRUE, inner.get("c"));
+        assertTrue(inner.containsKey("d"));
+        assertNull(inner.get("d"));
+    }
+
+    @Test
+    void parse_emptyContainers() {
+        assertTrue(((List<?>) JsonCodec.parse("[]")).isEmpty());
+        assertTrue(((Map<?, ?>) JsonCodec.parse("{ }")).isEmpty());
+    }
+
+    @Test
+    void parse_stringEscapes() {
+        assertEquals("a\"b\\c\né/", JsonCodec.parse("\"a\\\"b\\\\c\\n\\u00e9\\/\""));
+    }
+
+    @Test
+    void parse_malformedInput_throws() {
+        assertThrows(CalculatorException.class, () -> JsonCodec.parse("[1, 2"));
+        assertThrows(CalculatorException.class, () -> JsonCodec.parse("{\"a\" 1}"));
+        assertThrows(CalculatorException.class, () -> JsonCodec.parse("[1] x"));
+        assertThrows(CalculatorException.class, () -> JsonCodec.parse("\"open"));
+        assertThrows(CalculatorException.class, () -> JsonCodec.parse("-"));
+        assertThrows(CalculatorException.class, () -> JsonCodec.parse(""));
+    }
+
+    @Test
+    void parse_numbersFollowJsonGrammar() {
+        assertEquals(Arrays.asList(0.0, -0.5, 10.0, 1.5e-3, 2e10), JsonCodec.parse("[0, -0.5, 10, 1.5E-3, 2e+10]"));
+        for (String invalid : new String[] {"01", "-01", "1.", "-.5", ".5", "1e", "1e+-2", "+1", "--1", "1.e3"}) {
+            assertThrows(CalculatorException.class, () -> JsonCodec.parse(invalid), invalid);
+        }
+    }
+
+    @Test
+    void parse_unicodeEscape_requiresHexDigits() {
+        assertEquals("\u00ff", JsonCodec.parse("\"\\u00fF\""));
+        assertThrows(CalculatorException.class, () -> JsonCodec.parse("\"\\u+0ff\""));
+        assertThrows(CalculatorException.class, () -> JsonCodec.parse("\"\\u-0ff\""));
+        assertThrows(CalculatorException.class, () -> JsonCodec.parse("\"\\u00g0\""));
+    }
+
+    @Test
+    void parse_deepNesting_throws() {
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            deep.append('[');
+        }
+        assertThrows(CalculatorException.class, () -> JsonCodec.parse(deep.toString()));
+    }
+
+    // ---- appendString ----
+
+    @Test
+    void appendString_escapesAndRoundTrips() {
+        String original = "quote\" slash\\ tab\t ctl\u0001";
+        StringBuilder out = new StringBuilder();
+        JsonCodec.appendString(out, original);
+        assertEquals("\"quote\\\" slash\\\\ tab\\t ctl\\u0001\"", out.toString());
+        assertEquals(original, JsonCodec.parse(out.toString()));
+    }
+}
@@ -67,4 +67,50 @@ class NumberFormatUtilTest {
         String result = NumberFormatUtil.format(Math.PI);
         assertTrue(result.contains("."), "PI should have decimal digits");
     }
+
+    // ---- equivalence with the BigDecimal formatting ----
+
+    private static String bigDecimalFormat(double value) {
+        String text = java.math.BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        return "-0".equals(text) ? "0" : text;
+    }
+
+    @Test
+    void format_edgeValues_matchBigDecimalPlainString() {
+        double[] values = {
+                Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_NORMAL,
+                1e-10, 1e7, 1e22, 1e23, 9999999.999, 0.00099999, 2.82879384806159E17,
+                9007199254740991d, 9007199254740992d, -9007199254740994d, -123.456, 0.1 + 0.2
+        };
+        for (double value : values) {
+            assertEquals(bigDecimalFormat(value), NumberFormatUtil.format(value), String.valueOf(value));
+        }
+    }
+
+    @Test
+    void format_randomValues_matchBigDecimalPlainString() {
+        java.util.Random random = new java.util.Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            double value = i % 2 == 0
+                    ? Double.longBitsToDouble(random.nextLong())
+                    : random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+            if (Double.isFinite(value)) {
+                assertEquals(bigDecimalFormat(value), NumberFormatUtil.format(value), String.valueOf(value));
+            }
+        }
+    }
+
+    @Test
+    void format_largeValue_isPlainNotScientific() {
+        assertEquals("15000000000000000000000", NumberFormatUtil.format(1.5e22));
+        assertEquals("0.0000000123", NumberFormatUtil.format(1.23e-8));
+    }
+
+    @Test
+    void append_writesIntoExistingBuilder() {
+        StringBuilder out = new StringBuilder("x=");
+        NumberFormatUtil.append(out, -0.0);
+        NumberFormatUtil.append(out.append(','), -2.5);
+        assertEquals("x=0,-2.5", out.toString());
+    }
 }
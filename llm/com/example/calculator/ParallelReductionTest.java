@@ -0,0 +1,98 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelReductionTest {
+
+    private static double[] randomValues(int size, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12));
+        }
+        return values;
+    }
+
+    // ---- reproducibility ----
+
+    @Test
+    void reduce_resultIndependentOfParallelism() {
+        double[] values = randomValues(200_003, 7L);
+        double[] productValues = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            productValues[i] = 1d + values[i] * 1e-17;
+        }
+        int maxParallelism = Math.max(4, Runtime.getRuntime().availableProcessors());
+        double[] expected = null;
+        for (int parallelism = 1; parallelism <= maxParallelism; parallelism++) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                double[] actual = {
+                        ParallelReduction.reduce(ParallelReduction.Operation.SUM, values, pool),
+                        ParallelReduction.reduce(ParallelReduction.Operation.PRODUCT, productValues, pool),
+                        ParallelReduction.reduce(ParallelReduction.Operation.MIN, values, pool),
+                        ParallelReduction.reduce(ParallelReduction.Operation.MAX, values, pool)
+                };
+                if (expected == null) {
+                    expected = actual;
+                }
+                for (int i = 0; i < actual.length; i++) {
+                    assertEquals(Double.doubleToLongBits(expected[i]), Double.doubleToLongBits(actual[i]),
+                            "parallelism " + parallelism + ", operation " + i);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void sum_parallelAndCommonPool_agree() {
+        double[] values = randomValues(100_000, 11L);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            assertEquals(ParallelReduction.reduce(ParallelReduction.Operation.SUM, values, pool),
+                    ParallelReduction.sum(values));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // ---- correctness ----
+
+    @Test
+    void sum_largeInput_matchesExactIntegerTotal() {
+        double[] values = new double[150_000];
+        long expected = 0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+            expected += i;
+        }
+        assertEquals((double) expected, ParallelReduction.sum(values));
+    }
+
+    @Test
+    void minMax_largeInput() {
+        double[] values = randomValues(100_000, 3L);
+        values[77_777] = -1e300;
+        values[12_345] = 1e300;
+        assertEquals(-1e300, ParallelReduction.min(values));
+        assertEquals(1e300, ParallelReduction.max(values));
+    }
+
+    @Test
+    void product_smallInput() {
+        assertEquals(24.0, ParallelReduction.product(new double[]{2.0, 3.0, 4.0}));
+    }
+
+    @Test
+    void reduce_emptyInput_returnsIdentity() {
+        assertEquals(0.0, ParallelReduction.sum(new double[0]));
+        assertEquals(1.0, ParallelReduction.product(new double[0]));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentSortedMapTest {
+
+    private static PersistentSortedMap<String, Double> empty() {
+        return PersistentSortedMap.empty(String.CASE_INSENSITIVE_ORDER);
+    }
+
+    // ---- with / without ----
+
+    @Test
+    void with_returnsNewVersion_leavesOriginalUnchanged() {
+        PersistentSortedMap<String, Double> first = empty().with("x", 1.0);
+        PersistentSortedMap<String, Double> second = first.with("y", 2.0);
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertNull(first.get("y"));
+        assertEquals(2.0, second.get("y"));
+    }
+
+    @Test
+    void with_existingKeyDifferentCase_replacesValueKeepsOriginalKey() {
+        PersistentSortedMap<String, Double> map = empty().with("Rate", 1.0).with("RATE", 2.0);
+        assertEquals(1, map.size());
+        assertEquals(2.0, map.get("rate"));
+        assertEquals("Rate", map.keySet().iterator().next());
+    }
+
+    @Test
+    void without_missingKey_returnsSameInstance() {
+        PersistentSortedMap<String, Double> map = empty().with("x", 1.0);
+        assertSame(map, map.without("y"));
+    }
+
+    @Test
+    void without_removesKey() {
+        PersistentSortedMap<String, Double> map = empty().with("x", 1.0).with("y", 2.0);
+        PersistentSortedMap<String, Double> removed = map.without("X");
+        assertEquals(1, removed.size());
+        assertFalse(removed.containsKey("x"));
+        assertTrue(map.containsKey("x"));
+    }
+
+    @Test
+    void put_throwsUnsupported() {
+        assertThrows(UnsupportedOperationException.class, () -> empty().put("x", 1.0));
+    }
+
+    // ---- ordering ----
+
+    @Test
+    void randomOperations_matchTreeMap() {
+        Random random = new Random(5);
+        Map<String, Double> expected = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        PersistentSortedMap<String, Double> actual = empty();
+        for (int i = 0; i < 5000; i++) {
+            String key = (random.nextBoolean() ? "v" : "V") + random.nextInt(400);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.without(key);
+            } else {
+                double value = random.nextDouble();
+                expected.put(key, value);
+                actual = actual.with(key, value);
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void iteration_isCaseInsensitiveSorted() {
+        PersistentSortedMap<String, Double> map = empty().with("b", 2.0).with("A", 1.0).with("c", 3.0);
+        List<String> keys = new ArrayList<>(map.keySet());
+        List<String> sorted = new ArrayList<>(keys);
+        Collections.sort(sorted, String.CASE_INSENSITIVE_ORDER);
+        assertEquals(sorted, keys);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreciseMathTest {
+
+    // ---- factorial ----
+
+    @Test
+    void factorial_matchesNaiveProduct() {
+        BigInteger expected = BigInteger.ONE;
+        for (int n = 0; n <= 500; n++) {
+            if (n > 1) {
+                expected = expected.multiply(BigInteger.valueOf(n));
+            }
+            assertEquals(expected, PreciseMath.factorial(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void factorial_100000_leadingDigits() {
+        BigDecimal rounded = PreciseMath.toDecimal(PreciseMath.factorial(100_000), MathContext.DECIMAL128);
+        assertEquals("2.824229407960347874293421578024536E+456573", rounded.toString());
+    }
+
+    // ---- combinatorics ----
+
+    @Test
+    void combination_smallValues() {
+        assertEquals(new BigInteger("100891344545564193334812497256"), PreciseMath.combination(100, 50));
+        assertEquals(BigInteger.ONE, PreciseMath.combination(7, 0));
+        assertEquals(BigInteger.valueOf(7), PreciseMath.combination(7, 6));
+    }
+
+    @Test
+    void combination_millionChooseHalf_leadingDigits() {
+        BigDecimal rounded = PreciseMath.toDecimal(PreciseMath.combination(1_000_000, 500_000), MathContext.DECIMAL128);
+        assertEquals("7.899578772276970841770237903179113E+301026", rounded.toString());
+    }
+
+    @Test
+    void combination_kGreaterThanN_throws() {
+        assertThrows(CalculatorException.class, () -> PreciseMath.combination(3, 4));
+    }
+
+    @Test
+    void permutation_smallValues() {
+        assertEquals(BigInteger.valueOf(109027350432000L), PreciseMath.permutation(30, 10));
+        assertEquals(BigInteger.ONE, PreciseMath.permutation(5, 0));
+    }
+
+    // ---- fibonacci ----
+
+    @Test
+    void fibonacci_matchesIteration() {
+        BigInteger a = BigInteger.ZERO;
+        BigInteger b = BigInteger.ONE;
+        for (int n = 0; n <= 300; n++) {
+            assertEquals(a, PreciseMath.fibonacci(n), "n = " + n);
+            BigInteger next = a.add(b);
+            a = b;
+            b = next;
+        }
+    }
+
+    // ---- gcd / lcm ----
+
+    @Test
+    void gcdOfAndLcmOf() {
+        assertEquals(BigInteger.valueOf(6), PreciseMath.gcdOf(Arrays.asList(new BigDecimal("12"), new BigDecimal("-18"))));
+        assertEquals(BigInteger.valueOf(36), PreciseMath.lcmOf(Arrays.asList(new BigDecimal("12"), new BigDecimal("18"))));
+    }
+
+    @Test
+    void requireInteger_fraction_throws() {
+        assertThrows(CalculatorException.class, () -> PreciseMath.requireInteger(new BigDecimal("1.5"), "x"));
+    }
+
+    // ---- toDecimal ----
+
+    @Test
+    void toDecimal_matchesDecimalRounding() {
+        BigInteger value = PreciseMath.factorial(5000);
+        for (int digits : new int[]{1, 16, 34, 200}) {
+            MathContext mc = new MathContext(digits);
+            assertEquals(new BigDecimal(value, mc), PreciseMath.toDecimal(value, mc));
+        }
+    }
+
+    // ---- sqrt / constants ----
+
+    @Test
+    void sqrt_two_fiftyDigits() {
+        assertEquals(new BigDecimal("1.4142135623730950488016887242096980785696718753769"),
+                PreciseMath.sqrt(BigDecimal.valueOf(2), new MathContext(50)));
+    }
+
+    @Test
+    void sqrt_smallValue() {
+        assertEquals(new BigDecimal("0.03"), PreciseMath.sqrt(new BigDecimal("0.0009"), MathContext.DECIMAL128).stripTrailingZeros());
+    }
+
+    @Test
+    void sqrt_negative_throws() {
+        assertThrows(CalculatorException.class, () -> PreciseMath.sqrt(BigDecimal.valueOf(-1), MathContext.DECIMAL64));
+    }
+
+    @Test
+    void pi_fiftyDigits() {
+        assertEquals(new BigDecimal("3.1415926535897932384626433832795028841971693993751"),
+                PreciseMath.pi(new MathContext(50)));
+    }
+
+    @Test
+    void pi_afterHigherPrecision_roundsCachedValue() {
+        PreciseMath.pi(new MathContext(300));
+        assertEquals(new BigDecimal("3.14159265358979323846"), PreciseMath.pi(new MathContext(21)));
+    }
+
+    @Test
+    void e_fiftyDigits() {
+        assertEquals(new BigDecimal("2.7182818284590452353602874713526624977572470937000"),
+                PreciseMath.e(new MathContext(50)));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunningStatisticsTest {
+
+    private static final double[] SAMPLE = {2.0, 4.0, 4.0, 4.0, 5.0, 5.0, 7.0, 9.0};
+
+    // ---- sum ----
+
+    @Test
+    void sum_manyTenths_isCompensated() {
+        double[] values = new double[10];
+        Arrays.fill(values, 0.1);
+        assertEquals(1.0, RunningStatistics.of(values).sum());
+    }
+
+    @Test
+    void sum_cancellingMagnitudes_keepsSmallTerm() {
+        assertEquals(1.0, RunningStatistics.of(new double[]{1e100, 1.0, -1e100}).sum());
+    }
+
+    @Test
+    void sum_listAndArray_agree() {
+        assertEquals(RunningStatistics.of(SAMPLE).sum(),
+                RunningStatistics.of(Arrays.asList(2.0, 4.0, 4.0, 4.0, 5.0, 5.0, 7.0, 9.0)).sum());
+    }
+
+    // ---- moments ----
+
+    @Test
+    void mean_sample_returnsFive() {
+        assertEquals(5.0, RunningStatistics.of(SAMPLE).mean());
+    }
+
+    @Test
+    void populationVariance_sample_returnsFour() {
+        assertEquals(4.0, RunningStatistics.of(SAMPLE).populationVariance(), 1e-12);
+    }
+
+    @Test
+    void sampleVariance_sample_usesBesselCorrection() {
+        assertEquals(32.0 / 7.0, RunningStatistics.of(SAMPLE).sampleVariance(), 1e-12);
+    }
+
+    @Test
+    void sampleVariance_singleValue_throws() {
+        assertThrows(CalculatorException.class,
+                () -> RunningStatistics.of(Collections.singletonList(3.0)).sampleVariance());
+    }
+
+    @Test
+    void skewness_sample() {
+        assertEquals(0.65625, RunningStatistics.of(SAMPLE).skewness(), 1e-12);
+    }
+
+    @Test
+    void excessKurtosis_sample() {
+        assertEquals(-0.21875, RunningStatistics.of(SAMPLE).excessKurtosis(), 1e-12);
+    }
+
+    @Test
+    void skewness_constantValues_throws() {
+        assertThrows(CalculatorException.class, () -> RunningStatistics.of(new double[]{3.0, 3.0}).skewness());
+    }
+
+    @Test
+    void populationVariance_largeOffset_staysAccurate() {
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1e9 + (i % 2 == 0 ? 1.0 : -1.0);
+        }
+        assertEquals(1.0, RunningStatistics.of(values).populationVariance(), 1e-6);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.calculator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRegistryTest {
+
+    private static final long TTL_MILLIS = 1_000;
+
+    private final AtomicLong clock = new AtomicLong();
+    private Path spillDirectory;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (spillDirectory != null) {
+            try (Stream<Path> files = Files.list(spillDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(spillDirectory);
+        }
+    }
+
+    private SessionRegistry registry(int variableLimit, int historyLimit, boolean spill) throws IOException {
+        if (spill) {
+            spillDirectory = Files.createTempDirectory("calculator-sessions");
+        }
+        return new SessionRegistry(TTL_MILLIS, variableLimit, historyLimit, spill ? spillDirectory : null, clock::get);
+    }
+
+    private static List<String> run(SessionRegistry registry, String id, String line) {
+        return registry.withSession(id, processor -> processor.process(line).outputLines());
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    // ---- sessions ----
+
+    @Test
+    void withSession_sameId_sharesState() throws IOException {
+        SessionRegistry registry = registry(100, 100, false);
+        run(registry, "a", "x = 4");
+        assertEquals("8", run(registry, "a", "x * 2").get(0));
+        assertThrows(CalculatorException.class, () -> run(registry, "b", "x"));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void remove_discardsSession() throws IOException {
+        SessionRegistry registry = registry(100, 100, false);
+        run(registry, "a", "x = 4");
+        assertTrue(registry.remove("a"));
+        assertFalse(registry.remove("a"));
+        assertThrows(CalculatorException.class, () -> run(registry, "a", "x"));
+    }
+
+    // ---- eviction ----
+
+    @Test
+    void evictIdle_onlyEvictsSessionsPastTtl() throws IOException {
+        SessionRegistry registry = registry(100, 100, false);
+        run(registry, "old", "1");
+        advance(TTL_MILLIS / 2);
+        run(registry, "recent", "1");
+        advance(TTL_MILLIS / 2);
+        assertEquals(1, registry.evictIdle());
+        assertFalse(registry.isResident("old"));
+        assertTrue(registry.isResident("recent"));
+    }
+
+    @Test
+    void evictIdle_withoutSpill_dropsState() throws IOException {
+        SessionRegistry registry = registry(100, 100, false);
+        run(registry, "a", "x = 4");
+        advance(TTL_MILLIS);
+        registry.evictIdle();
+        assertThrows(CalculatorException.class, () -> run(registry, "a", "x"));
+    }
+
+    @Test
+    void evictIdle_withSpill_resumesState() throws IOException {
+        SessionRegistry registry = registry(100, 100, true);
+        run(registry, "user/42", "x = 0.1 + 0.2");
+        run(registry, "user/42", "MS 7");
+        run(registry, "user/42", ":precision on");
+        run(registry, "user/42", "big = 2 ^ 100");
+        advance(TTL_MILLIS);
+        assertEquals(1, registry.evictIdle());
+        assertFalse(registry.isResident("user/42"));
+        assertEquals(0L, registry.retainedBytes());
+
+        assertTrue(registry.<Boolean>withSession("user/42", processor -> processor.engine().isPrecisionEnabled()));
+        assertEquals("1267650600228229401496703205376", run(registry, "user/42", "big").get(0));
+        run(registry, "user/42", ":precision off");
+        assertEquals("0.30000000000000004", run(registry, "user/42", "x").get(0));
+        assertEquals("7", run(registry, "user/42", "MR").get(0));
+        assertTrue(registry.isResident("user/42"));
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertEquals(0L, files.count());
+        }
+    }
+
+    @Test
+    void evictIdle_withSpill_keepsHistoryIndices() throws IOException {
+        SessionRegistry registry = registry(100, 100, true);
+        run(registry, "a", "3 * 3");
+        run(registry, "a", "4 * 4");
+        advance(TTL_MILLIS);
+        registry.evictIdle();
+        assertEquals("9", run(registry, "a", "!1").get(0));
+        List<HistoryEntry> history = registry.withSession("a", CalculatorCommandProcessor::historySnapshot);
+        assertEquals(3, history.size());
+        assertEquals(3, history.get(2).index());
+    }
+
+    // ---- budgets ----
+
+    @Test
+    void variableLimit_rejectsNewNamesButAllowsUpdates() throws IOException {
+        SessionRegistry registry = registry(2, 100, false);
+        run(registry, "a", "x = 1; y = 2");
+        assertThrows(CalculatorException.class, () -> run(registry, "a", "z = 3"));
+        assertEquals("5", run(registry, "a", "x += 4").get(0));
+        run(registry, "a", ":del y");
+        assertEquals("3", run(registry, "a", "z = 3").get(0));
+    }
+
+    @Test
+    void historyLimit_keepsNewestEntries() throws IOException {
+        SessionRegistry registry = registry(100, 3, false);
+        for (int i = 1; i <= 5; i++) {
+            run(registry, "a", Integer.toString(i));
+        }
+        List<HistoryEntry> history = registry.withSession("a", CalculatorCommandProcessor::historySnapshot);
+        assertEquals(3, history.size());
+        assertEquals(3, history.get(0).index());
+        assertThrows(CalculatorException.class, () -> run(registry, "a", "!1"));
+    }
+
+    @Test
+    void retainedBytes_tracksStateGrowthPerSession() throws IOException {
+        SessionRegistry registry = registry(1_000, 1_000, false);
+        run(registry, "small", "x = 1");
+        long small = registry.retainedBytes("small");
+        for (int i = 0; i < 50; i++) {
+            run(registry, "large", "v" + i + " = " + i);
+        }
+        long large = registry.retainedBytes("large");
+        assertTrue(small > 0);
+        assertTrue(large > 20 * small);
+        assertEquals(small + large, registry.retainedBytes());
+        assertEquals(0L, registry.retainedBytes("missing"));
+    }
+}
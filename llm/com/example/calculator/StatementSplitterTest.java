@@ -94,4 +94,27 @@ class StatementSplitterTest {
         assertEquals("a = 1", result.get(0));
         assertEquals("b = 2", result.get(1));
     }
+
+    @Test
+    void split_spans_recordOffsetsInOriginalInput() {
+        StatementSpans spans = new StatementSpans();
+        StatementSplitter.split("  a = 1  ; max(1; 2) ;", spans);
+        assertEquals(2, spans.size());
+        assertEquals("a = 1", spans.getText(0));
+        assertEquals(2, spans.getStart(0));
+        assertEquals(7, spans.getEnd(0));
+        assertEquals("max(1; 2)", spans.getText(1));
+        assertEquals(11, spans.getStart(1));
+        assertEquals(20, spans.getEnd(1));
+    }
+
+    @Test
+    void split_spans_clearedOnReuse() {
+        StatementSpans spans = new StatementSpans();
+        StatementSplitter.split("1; 2; 3", spans);
+        StatementSplitter.split("4", spans);
+        assertEquals(1, spans.size());
+        assertEquals("4", spans.getText(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> spans.getText(1));
+    }
 }
@@ -1,15 +1,26 @@
 package com.example.calculator;
 
-import java.util.List;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Random;
 import java.util.TreeMap;
 
 final class BuiltinFunctionCatalog {
+    private static final Map<String, FunctionDefinition> FUNCTIONS = Collections.unmodifiableMap(build());
+    private static final Map<String, String> HELP = Collections.unmodifiableMap(describe(FUNCTIONS));
+
     private BuiltinFunctionCatalog() {
     }
 
-    static Map<String, FunctionDefinition> create(Random random) {
+    static Map<String, FunctionDefinition> shared() {
+        return FUNCTIONS;
+    }
+
+    static Map<String, String> help() {
+        return HELP;
+    }
+
+    private static Map<String, FunctionDefinition> build() {
         Map<String, FunctionDefinition> functions = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
         register(functions, "abs", 1, 1, "abs(x)", a -> Math.abs(a.get(0)));
@@ -35,6 +46,7 @@ final class BuiltinFunctionCatalog {
         register(functions, "rad", 1, 1, "rad(degrees)", a -> Math.toRadians(a.get(0)));
         register(functions, "fact", 1, 1, "fact(n)", a -> CalculatorMath.factorial(a.get(0)));
         register(functions, "fib", 1, 1, "fib(n)", a -> CalculatorMath.fibonacci(a.get(0)));
+        register(functions, "lgamma", 1, 1, "lgamma(x)  // ln|gamma(x)|", a -> CalculatorMath.logGamma(a.get(0)));
         register(functions, "isprime", 1, 1, "isprime(n)", a -> CalculatorMath.isPrime(a.get(0)) ? 1d : 0d);
         register(functions, "not", 1, 1, "not(x)", a -> CalculatorMath.toBoolean(a.get(0)) ? 0d : 1d);
 
@@ -76,32 +88,20 @@ final class BuiltinFunctionCatalog {
         register(functions, "between", 3, 3, "between(value, min, max)", a ->
                 (a.get(0) >= a.get(1) && a.get(0) <= a.get(2)) ? 1d : 0d);
 
-        register(functions, "min", 2, -1, "min(a, b, ...)", a -> {
-            double min = Double.POSITIVE_INFINITY;
-            for (double value : a) {
-                min = Math.min(min, value);
-            }
-            return min;
-        });
-        register(functions, "max", 2, -1, "max(a, b, ...)", a -> {
-            double max = Double.NEGATIVE_INFINITY;
-            for (double value : a) {
-                max = Math.max(max, value);
-            }
-            return max;
-        });
-        register(functions, "sum", 1, -1, "sum(a, b, ...)", a -> {
-            double total = 0d;
-            for (double value : a) {
-                total += value;
-            }
-            return total;
-        });
+        register(functions, "min", 2, -1, "min(a, b, ...)", CalculatorMath::minOf);
+        register(functions, "max", 2, -1, "max(a, b, ...)", CalculatorMath::maxOf);
+        register(functions, "sum", 1, -1, "sum(a, b, ...)", CalculatorMath::sumOf);
         register(functions, "prod", 1, -1, "prod(a, b, ...)", CalculatorMath::productOf);
         register(functions, "avg", 1, -1, "avg(a, b, ...)", CalculatorMath::averageOf);
         register(functions, "median", 1, -1, "median(a, b, ...)", CalculatorMath::medianOf);
+        register(functions, "percentile", 2, -1, "percentile(p, a, b, ...)  // p in [0, 100]", CalculatorMath::percentileOf);
+        register(functions, "quantiles", 3, -1, "quantiles(k, q, a, b, ...)  // k-th of q quantiles", CalculatorMath::quantilesOf);
         register(functions, "var", 1, -1, "var(a, b, ...)", CalculatorMath::varianceOf);
         register(functions, "std", 1, -1, "std(a, b, ...)", CalculatorMath::standardDeviationOf);
+        register(functions, "sampvar", 2, -1, "sampvar(a, b, ...)", CalculatorMath::sampleVarianceOf);
+        register(functions, "sampstd", 2, -1, "sampstd(a, b, ...)", CalculatorMath::sampleStandardDeviationOf);
+        register(functions, "skew", 2, -1, "skew(a, b, ...)", CalculatorMath::skewnessOf);
+        register(functions, "kurt", 2, -1, "kurt(a, b, ...)  // excess kurtosis", CalculatorMath::kurtosisOf);
         register(functions, "clamp", 3, 3, "clamp(value, min, max)", a -> CalculatorMath.clamp(a.get(0), a.get(1), a.get(2)));
         register(functions, "atan2", 2, 2, "atan2(y, x)", a -> Math.atan2(a.get(0), a.get(1)));
         register(functions, "hypot", 2, 2, "hypot(x, y)", a -> Math.hypot(a.get(0), a.get(1)));
@@ -109,8 +109,10 @@ final class BuiltinFunctionCatalog {
         register(functions, "lcm", 2, -1, "lcm(a, b, ...)", CalculatorMath::lcmOf);
         register(functions, "perm", 2, 2, "perm(n, k)", a -> CalculatorMath.permutation(a.get(0), a.get(1)));
         register(functions, "comb", 2, 2, "comb(n, k)", a -> CalculatorMath.combination(a.get(0), a.get(1)));
+        register(functions, "fibmod", 2, 2, "fibmod(n, m)", a -> CalculatorMath.fibonacciMod(a.get(0), a.get(1)));
 
-        register(functions, "rand", 0, 2, "rand() | rand(max) | rand(min, max)", a -> {
+        registerContextual(functions, "rand", 0, 2, "rand() | rand(max) | rand(min, max)", (context, a) -> {
+            Random random = context.random();
             if (a.isEmpty()) {
                 return random.nextDouble();
             }
@@ -124,7 +126,7 @@ final class BuiltinFunctionCatalog {
             }
             return min + random.nextDouble() * (max - min);
         });
-        register(functions, "randi", 1, 2, "randi(max) | randi(min, max)", a -> {
+        registerContextual(functions, "randi", 1, 2, "randi(max) | randi(min, max)", (context, a) -> {
             long min;
             long max;
             if (a.size() == 1) {
@@ -141,7 +143,7 @@ final class BuiltinFunctionCatalog {
             if (span <= 0L || span > Integer.MAX_VALUE) {
                 throw new CalculatorException("randi range is too large.");
             }
-            return min + random.nextInt((int) span);
+            return min + context.random().nextInt((int) span);
         });
 
         return functions;
@@ -157,4 +159,23 @@ final class BuiltinFunctionCatalog {
     ) {
         functions.put(name, new FunctionDefinition(name, minArgs, maxArgs, description, implementation));
     }
+
+    private static void registerContextual(
+            Map<String, FunctionDefinition> functions,
+            String name,
+            int minArgs,
+            int maxArgs,
+            String description,
+            FunctionDefinition.ContextualImplementation implementation
+    ) {
+        functions.put(name, new FunctionDefinition(name, minArgs, maxArgs, description, implementation));
+    }
+
+    private static Map<String, String> describe(Map<String, FunctionDefinition> functions) {
+        Map<String, String> details = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (FunctionDefinition definition : functions.values()) {
+            details.put(definition.name(), definition.description());
+        }
+        return details;
+    }
 }
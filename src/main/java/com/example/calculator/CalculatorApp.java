@@ -50,6 +50,27 @@ public class CalculatorApp {
                 }
                 runScript(Paths.get(args[1]));
                 break;
+            case "--serve":
+                if (args.length < 2) {
+                    System.err.println("Missing port for --serve.");
+                    return;
+                }
+                runServer(args[1]);
+                break;
+            case "--serve-nio":
+                if (args.length < 2) {
+                    System.err.println("Missing port for --serve-nio.");
+                    return;
+                }
+                runNioServer(args[1]);
+                break;
+            case "--serve-http":
+                if (args.length < 2) {
+                    System.err.println("Missing port for --serve-http.");
+                    return;
+                }
+                runHttpServer(args[1]);
+                break;
             default:
                 runSingleLine(String.join(" ", args));
                 break;
@@ -75,6 +96,61 @@ public class CalculatorApp {
         }
     }
 
+    private void runServer(String portText) {
+        Integer port = parsePort(portText);
+        if (port == null) {
+            return;
+        }
+        try (CalculatorServer server = CalculatorServer.start(port)) {
+            System.out.println("Serving calculator sessions on 127.0.0.1:" + server.port());
+            server.awaitTermination();
+        } catch (IOException ex) {
+            System.err.println("Could not start server: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runNioServer(String portText) {
+        Integer port = parsePort(portText);
+        if (port == null) {
+            return;
+        }
+        int workers = Runtime.getRuntime().availableProcessors();
+        try (CalculatorNioServer server = CalculatorNioServer.start(port, workers)) {
+            System.out.println("Serving pipelined calculator sessions on 127.0.0.1:" + server.port());
+            server.awaitTermination();
+        } catch (IOException ex) {
+            System.err.println("Could not start server: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runHttpServer(String portText) {
+        Integer port = parsePort(portText);
+        if (port == null) {
+            return;
+        }
+        try (CalculatorHttpServer server = CalculatorHttpServer.start(port)) {
+            System.out.println("Serving JSON batches on http://127.0.0.1:" + server.port() + CalculatorHttpServer.PATH);
+            server.awaitTermination();
+        } catch (IOException ex) {
+            System.err.println("Could not start server: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Integer parsePort(String portText) {
+        try {
+            return Integer.parseInt(portText);
+        } catch (NumberFormatException ex) {
+            System.err.println("Invalid port: " + portText);
+            return null;
+        }
+    }
+
     private void runScript(Path path) {
         List<String> lines;
         try {
@@ -145,6 +221,9 @@ public class CalculatorApp {
         System.out.println("  -h, --help     Show help");
         System.out.println("  -e, --eval     Evaluate expression(s)");
         System.out.println("  -f, --file     Execute expressions from a file");
+        System.out.println("  --serve <port> Serve one calculator session per TCP connection on 127.0.0.1");
+        System.out.println("  --serve-nio <port> Same protocol on a selector thread, with request pipelining");
+        System.out.println("  --serve-http <port> POST JSON expression batches to http://127.0.0.1:<port>/evaluate");
         System.out.println();
         printReplHelp();
     }
@@ -1,46 +1,154 @@
 package com.example.calculator;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Properties;
 
 final class CalculatorCommandProcessor {
+    private static final long HISTORY_ENTRY_OVERHEAD_BYTES = 112;
+
     private final CalculatorEngine engine;
+    private final int historyLimit;
     private final List<HistoryEntry> history = new ArrayList<>();
     private int historyCounter;
+    private long historyBytes;
 
     CalculatorCommandProcessor(CalculatorEngine engine) {
+        this(engine, Integer.MAX_VALUE);
+    }
+
+    // Past the limit the oldest entries are dropped; their indices stay retired so !n never
+    // silently recalls a different line.
+    CalculatorCommandProcessor(CalculatorEngine engine, int historyLimit) {
+        if (historyLimit < 1) {
+            throw new CalculatorException("History limit must be positive.");
+        }
         this.engine = engine;
+        this.historyLimit = historyLimit;
+    }
+
+    enum LineKind {
+        EMPTY,
+        EXIT,
+        HISTORY_RECALL,
+        META,
+        MEMORY,
+        EXPRESSION
     }
 
     CommandResult process(String line) {
-        if (line == null || line.trim().isEmpty()) {
-            return CommandResult.empty();
+        String normalized = line == null ? "" : line.trim();
+        switch (classify(normalized)) {
+            case EMPTY:
+                return CommandResult.empty();
+            case EXIT:
+                return CommandResult.exit();
+            case HISTORY_RECALL:
+                return processHistoryRecall(normalized);
+            case META:
+                return processMetaCommand(normalized);
+            case MEMORY:
+                return processMemoryCommand(normalized);
+            default:
+                return processExpression(normalized);
         }
-        String normalized = line.trim();
-        if (isExitCommand(normalized)) {
-            return CommandResult.exit();
+    }
+
+    // Routes a trimmed line by looking at its first few characters only, so the common case of
+    // an expression costs neither a regex split nor a case-converted copy of the line. Command
+    // words match ASCII case-insensitively; a memory command word must end the line or be
+    // followed by whitespace.
+    static LineKind classify(String normalized) {
+        int length = normalized.length();
+        if (length == 0) {
+            return LineKind.EMPTY;
         }
-        if (normalized.startsWith("!")) {
-            return processHistoryRecall(normalized);
+        char first = normalized.charAt(0);
+        if (first == '!') {
+            return LineKind.HISTORY_RECALL;
         }
-        if (normalized.startsWith(":")) {
-            return processMetaCommand(normalized);
+        if (first == ':') {
+            return isWord(normalized, 1, "exit") || isWord(normalized, 1, "quit") ? LineKind.EXIT : LineKind.META;
         }
-        CommandResult memoryResult = processMemoryCommand(normalized);
-        if (memoryResult != null) {
-            return memoryResult;
+        if (isWord(normalized, 0, "exit") || isWord(normalized, 0, "quit")) {
+            return LineKind.EXIT;
+        }
+        if ((first == 'M' || first == 'm') && length >= 2 && (length == 2 || isSeparator(normalized.charAt(2)))) {
+            switch (normalized.charAt(1)) {
+                case 'S':
+                case 's':
+                case 'R':
+                case 'r':
+                case 'C':
+                case 'c':
+                case '+':
+                case '-':
+                    return LineKind.MEMORY;
+                default:
+                    break;
+            }
         }
-        return processExpression(normalized);
+        return LineKind.EXPRESSION;
+    }
+
+    // True when line, from offset on, is exactly the lowercase ASCII word in any letter case.
+    private static boolean isWord(String line, int offset, String word) {
+        if (line.length() - offset != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = line.charAt(offset + i);
+            char expected = word.charAt(i);
+            if (c != expected && c != expected - ('a' - 'A')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The whitespace set of the regex \s that used to split memory commands from their operand.
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     List<HistoryEntry> historySnapshot() {
         return Collections.unmodifiableList(new ArrayList<HistoryEntry>(history));
     }
 
+    CalculatorEngine engine() {
+        return engine;
+    }
+
+    long estimateRetainedBytes() {
+        return engine.estimateRetainedBytes() + historyBytes;
+    }
+
+    void saveState(Properties target) {
+        engine.saveState(target);
+        target.setProperty("history.counter", Integer.toString(historyCounter));
+        for (HistoryEntry entry : history) {
+            target.setProperty("history." + entry.index() + ".input", entry.input());
+            target.setProperty("history." + entry.index() + ".output", entry.output());
+        }
+    }
+
+    void restoreState(Properties source) {
+        engine.restoreState(source);
+        clearHistory();
+        historyCounter = Integer.parseInt(source.getProperty("history.counter", "0"));
+        for (int index = Math.max(1, historyCounter - historyLimit + 1); index <= historyCounter; index++) {
+            String input = source.getProperty("history." + index + ".input");
+            if (input != null) {
+                appendHistory(new HistoryEntry(index, input, source.getProperty("history." + index + ".output", "")));
+            }
+        }
+    }
+
     private CommandResult processHistoryRecall(String normalized) {
         String text = normalized.substring(1).trim();
         if (text.isEmpty()) {
@@ -91,12 +199,10 @@ final class CalculatorCommandProcessor {
             case ":memory":
                 return CommandResult.ofLines(Collections.singletonList("memory = " + NumberFormatUtil.format(engine.memoryRecall())));
             case ":clear":
-                history.clear();
-                historyCounter = 0;
+                clearHistory();
                 return CommandResult.ofLines(Collections.singletonList("History cleared."));
             case ":reset":
-                history.clear();
-                historyCounter = 0;
+                clearHistory();
                 engine.reset();
                 return CommandResult.ofLines(Collections.singletonList("Calculator reset."));
             case ":del":
@@ -117,11 +223,35 @@ final class CalculatorCommandProcessor {
                 }
                 engine.setRandomSeed(seed);
                 return CommandResult.ofLines(Collections.singletonList("Random seed set to " + seed));
+            case ":precision":
+                return CommandResult.ofLines(Collections.singletonList(processPrecisionCommand(tail)));
             default:
                 throw new CalculatorException("Unknown command: " + command + " (use :help)");
         }
     }
 
+    private String processPrecisionCommand(String tail) {
+        String option = tail.toLowerCase(Locale.ROOT);
+        if ("on".equals(option)) {
+            engine.setPrecisionEnabled(true);
+        } else if ("off".equals(option)) {
+            engine.setPrecisionEnabled(false);
+        } else if (!option.isEmpty()) {
+            int digits;
+            try {
+                digits = Integer.parseInt(option);
+            } catch (NumberFormatException ex) {
+                throw new CalculatorException("Invalid precision: " + tail + " (use on, off or a digit count)");
+            }
+            engine.setPrecisionDigits(digits);
+            engine.setPrecisionEnabled(true);
+        }
+        if (!engine.isPrecisionEnabled()) {
+            return "Precision mode: off";
+        }
+        return "Precision mode: on (" + engine.getPrecisionDigits() + " digits)";
+    }
+
     private List<String> formatHistory(String tail) {
         if (history.isEmpty()) {
             return Collections.singletonList("History: <empty>");
@@ -168,50 +298,63 @@ final class CalculatorCommandProcessor {
     }
 
     private CommandResult processMemoryCommand(String line) {
-        String[] parts = line.split("\\s+", 2);
-        String command = parts[0].toUpperCase(Locale.ROOT);
-        String tail = parts.length > 1 ? parts[1].trim() : "";
+        char command = Character.toUpperCase(line.charAt(1));
+        String tail = line.substring(2).trim();
 
-        if ("MR".equals(command)) {
+        if (command == 'R') {
             String output = NumberFormatUtil.format(engine.memoryRecall());
             addHistory("MR", output);
             return CommandResult.ofLines(Collections.singletonList(output));
         }
-        if ("MC".equals(command)) {
+        if (command == 'C') {
             engine.memoryClear();
             return CommandResult.ofLines(Collections.singletonList("memory = 0"));
         }
-        if ("MS".equals(command)) {
+        if (command == 'S') {
             double value = tail.isEmpty() ? engine.getAns() : engine.evaluate(tail);
             engine.memoryStore(value);
             String output = "memory = " + NumberFormatUtil.format(engine.memoryRecall());
             addHistory(line, output);
             return CommandResult.ofLines(Collections.singletonList(output));
         }
-        if ("M+".equals(command)) {
+        if (command == '+') {
             double value = tail.isEmpty() ? engine.getAns() : engine.evaluate(tail);
             engine.memoryAdd(value);
             String output = "memory = " + NumberFormatUtil.format(engine.memoryRecall());
             addHistory(line, output);
             return CommandResult.ofLines(Collections.singletonList(output));
         }
-        if ("M-".equals(command)) {
-            double value = tail.isEmpty() ? engine.getAns() : engine.evaluate(tail);
-            engine.memorySubtract(value);
-            String output = "memory = " + NumberFormatUtil.format(engine.memoryRecall());
-            addHistory(line, output);
-            return CommandResult.ofLines(Collections.singletonList(output));
+        double value = tail.isEmpty() ? engine.getAns() : engine.evaluate(tail);
+        engine.memorySubtract(value);
+        String output = "memory = " + NumberFormatUtil.format(engine.memoryRecall());
+        addHistory(line, output);
+        return CommandResult.ofLines(Collections.singletonList(output));
+    }
+
+    // Expression lines only, as HTTP session batches submit them: honours precision mode and
+    // records history, but never runs commands.
+    CommandResult processExpression(String expression) {
+        if (engine.isPrecisionEnabled()) {
+            return processPreciseExpression(expression);
         }
-        return null;
+        StatementSpans statements = new StatementSpans();
+        double[] results = engine.evaluateAllToArray(expression, statements);
+        List<String> outputLines = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            String output = NumberFormatUtil.format(results[i]);
+            addHistory(statements.getText(i), output);
+            outputLines.add(output);
+        }
+        return CommandResult.ofLines(outputLines);
     }
 
-    private CommandResult processExpression(String expression) {
-        List<Double> results = engine.evaluateAll(expression);
-        List<String> outputLines = new ArrayList<>();
-        List<String> statements = StatementSplitter.split(expression);
+    private CommandResult processPreciseExpression(String expression) {
+        StatementSpans statements = new StatementSpans();
+        List<BigDecimal> results = engine.evaluateAllPrecise(expression, statements);
+        List<String> outputLines = new ArrayList<>(results.size());
         for (int i = 0; i < results.size(); i++) {
             String output = NumberFormatUtil.format(results.get(i));
-            addHistory(statements.get(i), output);
+            addHistory(statements.getText(i), output);
             outputLines.add(output);
         }
         return CommandResult.ofLines(outputLines);
@@ -219,15 +362,25 @@ final class CalculatorCommandProcessor {
 
     private void addHistory(String input, String output) {
         historyCounter++;
-        history.add(new HistoryEntry(historyCounter, input, output));
+        appendHistory(new HistoryEntry(historyCounter, input, output));
+        if (history.size() > historyLimit) {
+            historyBytes -= historyBytes(history.remove(0));
+        }
+    }
+
+    private void appendHistory(HistoryEntry entry) {
+        history.add(entry);
+        historyBytes += historyBytes(entry);
+    }
+
+    private void clearHistory() {
+        history.clear();
+        historyCounter = 0;
+        historyBytes = 0;
     }
 
-    private boolean isExitCommand(String line) {
-        String lower = line.toLowerCase(Locale.ROOT);
-        return "exit".equals(lower)
-                || "quit".equals(lower)
-                || ":exit".equals(lower)
-                || ":quit".equals(lower);
+    private static long historyBytes(HistoryEntry entry) {
+        return HISTORY_ENTRY_OVERHEAD_BYTES + 2L * (entry.input().length() + entry.output().length());
     }
 
     static List<String> helpLines() {
@@ -250,7 +403,8 @@ final class CalculatorCommandProcessor {
                 "",
                 "REPL commands:",
                 "  :help, :vars, :const, :funcs, :history [n], :ans, :memory",
-                "  :clear (history), :reset (all state), :del <var>, :seed <n>, !<index>"
+                "  :clear (history), :reset (all state), :del <var>, :seed <n>, !<index>",
+                "  :precision [on|off|digits]  Arbitrary-precision evaluation"
         );
     }
 }
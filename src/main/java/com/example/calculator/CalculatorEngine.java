@@ -1,22 +1,40 @@
 package com.example.calculator;
 
+import com.example.calculator.ExpressionParser.Token;
+import com.example.calculator.ExpressionParser.TokenType;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Random;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 public class CalculatorEngine {
-    private static final Pattern ASSIGNMENT_PATTERN = Pattern.compile(
-            "^([A-Za-z_][A-Za-z0-9_]*)\\s*(=|\\+=|-=|\\*=|/=|%=|\\^=)\\s*(.+)$"
-    );
+    static final int MAX_PRECISION_DIGITS = 10_000;
+
+    private static final Map<String, Double> DEFAULT_CONSTANTS = Collections.unmodifiableMap(defaultConstants());
 
     private final Random random;
     private final CalculatorState state;
-    private final Map<String, FunctionDefinition> functions;
+    private final Map<String, FunctionDefinition> functions = BuiltinFunctionCatalog.shared();
+    private final FunctionDefinition.FunctionContext functionContext = this::currentRandom;
+    private volatile MathContext mathContext = MathContext.DECIMAL128;
+    private volatile boolean precisionEnabled;
+    private volatile int variableLimit = Integer.MAX_VALUE;
+    private volatile long evaluationTimeoutMillis = EvaluationGuard.UNLIMITED;
+    private volatile long evaluationStepLimit = EvaluationGuard.UNLIMITED;
+    // Readers only ever see a fully published snapshot; writers republish under the monitor
+    // once each mutating call completes, so a multi-statement line is never observed half-applied.
+    private volatile EngineSnapshot snapshot;
 
     public CalculatorEngine() {
         this(new Random());
@@ -24,140 +42,391 @@ public class CalculatorEngine {
 
     CalculatorEngine(Random random) {
         this.random = random;
-        this.state = new CalculatorState(defaultConstants());
-        this.functions = BuiltinFunctionCatalog.create(random);
+        this.state = new CalculatorState(DEFAULT_CONSTANTS);
+        this.snapshot = new EngineSnapshot(0L, 0d, 0d, state.getVariablesSnapshot());
+    }
+
+    private CalculatorEngine(CalculatorEngine parent, Random random) {
+        this.random = random;
+        this.state = parent.state.copy();
+        this.mathContext = parent.mathContext;
+        this.precisionEnabled = parent.precisionEnabled;
+        this.variableLimit = parent.variableLimit;
+        this.evaluationTimeoutMillis = parent.evaluationTimeoutMillis;
+        this.evaluationStepLimit = parent.evaluationStepLimit;
+        this.snapshot = new EngineSnapshot(0L, state.getAns(), state.getMemory(), state.getVariablesSnapshot());
+    }
+
+    public synchronized CalculatorEngine fork() {
+        return new CalculatorEngine(this, new Random(random.nextLong()));
     }
 
     public synchronized double evaluate(String statement) {
-        List<Double> results = evaluateAll(statement);
-        return results.get(results.size() - 1);
+        double[] results = evaluateAllToArray(statement);
+        return results[results.length - 1];
     }
 
     public synchronized List<Double> evaluateAll(String statement) {
-        String input = statement == null ? "" : statement.trim();
-        if (input.isEmpty()) {
-            throw new CalculatorException("Input is empty.");
+        double[] results = evaluateAllToArray(statement);
+        List<Double> boxed = new ArrayList<>(results.length);
+        for (double result : results) {
+            boxed.add(result);
         }
+        return Collections.unmodifiableList(boxed);
+    }
 
-        List<String> statements = StatementSplitter.split(input);
-        if (statements.isEmpty()) {
-            throw new CalculatorException("Input is empty.");
+    // Same as evaluateAll, one element per statement, without boxing each result.
+    public synchronized double[] evaluateAllToArray(String statement) {
+        return evaluateAllToArray(statement, new StatementSpans());
+    }
+
+    // Also records in spans the statements the results belong to, so callers pairing results
+    // with statement text need not split the input again. Spans are filled before evaluation
+    // starts, so they describe the whole input even when a statement fails.
+    public synchronized double[] evaluateAllToArray(String statement, StatementSpans spans) {
+        return withBudget(() -> evaluateStatements(statement, spans));
+    }
+
+    private double[] evaluateStatements(String statement, StatementSpans spans) {
+        try {
+            List<Token> tokens = splitStatements(statement, spans);
+            double[] results = new double[spans.size()];
+            for (int i = 0; i < results.length; i++) {
+                EvaluationGuard.checkpoint();
+                results[i] = evaluateSingle(tokens, spans.getFirstToken(i), spans.getEndToken(i));
+            }
+            return results;
+        } finally {
+            publish();
+        }
+    }
+
+    public EvaluationResult tryEvaluateAll(String statement) {
+        return tryEvaluateAll(statement, new EvaluationResult());
+    }
+
+    // Non-throwing counterpart of evaluateAll for bulk callers: each statement's value or error
+    // code lands in the supplied result, which is cleared first and can be reused for the next
+    // input. Unlike evaluateAll, a failing statement does not stop the ones after it, so later
+    // statements see the state left by the earlier successful ones. An exhausted evaluation
+    // budget is recorded and ends the call; cancellation still throws.
+    public synchronized EvaluationResult tryEvaluateAll(String statement, EvaluationResult into) {
+        into.clear();
+        return withBudget(() -> tryEvaluateStatements(statement, into));
+    }
+
+    private EvaluationResult tryEvaluateStatements(String statement, EvaluationResult into) {
+        try {
+            StatementSpans spans = into.spans;
+            List<Token> tokens;
+            try {
+                tokens = splitStatements(statement, spans);
+            } catch (CalculatorException ex) {
+                into.addFailure(ex);
+                return into;
+            }
+            for (int i = 0; i < spans.size(); i++) {
+                try {
+                    EvaluationGuard.checkpoint();
+                    into.addValue(evaluateSingle(tokens, spans.getFirstToken(i), spans.getEndToken(i)));
+                } catch (EvaluationBudgetExceededException ex) {
+                    into.addFailure(ex);
+                    break;
+                } catch (CalculatorException ex) {
+                    into.addFailure(ex);
+                }
+            }
+            return into;
+        } finally {
+            publish();
+        }
+    }
+
+    // Runs evaluateAll on the executor. Cancelling the returned future stops the evaluation at its
+    // next checkpoint: between statements, per parsed operand, every few thousand elements of a
+    // large reduction, and periodically inside primality tests. Statements that completed before
+    // that point stay applied.
+    public CompletableFuture<List<Double>> evaluateAllAsync(String statement, Executor executor) {
+        CompletableFuture<List<Double>> future = new CompletableFuture<>();
+        EvaluationGuard guard = new EvaluationGuard(future::isCancelled);
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(guard.run(() -> evaluateAll(statement)));
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    public synchronized List<BigDecimal> evaluateAllPrecise(String statement) {
+        return evaluateAllPrecise(statement, new StatementSpans());
+    }
+
+    public synchronized List<BigDecimal> evaluateAllPrecise(String statement, StatementSpans spans) {
+        return withBudget(() -> evaluatePreciseStatements(statement, spans));
+    }
+
+    private List<BigDecimal> evaluatePreciseStatements(String statement, StatementSpans spans) {
+        try {
+            List<Token> tokens = splitStatements(statement, spans);
+            List<BigDecimal> results = new ArrayList<>(spans.size());
+            for (int i = 0; i < spans.size(); i++) {
+                EvaluationGuard.checkpoint();
+                results.add(evaluateSinglePrecise(tokens, spans.getFirstToken(i), spans.getEndToken(i)));
+            }
+            return Collections.unmodifiableList(results);
+        } finally {
+            publish();
         }
+    }
 
-        List<Double> results = new ArrayList<>(statements.size());
-        for (String current : statements) {
-            double result = evaluateSingle(current);
-            results.add(result);
+    public long getEvaluationTimeoutMillis() {
+        return evaluationTimeoutMillis;
+    }
+
+    public long getEvaluationStepLimit() {
+        return evaluationStepLimit;
+    }
+
+    // Limits each evaluateAll/evaluateAllPrecise call; 0 leaves that dimension unlimited. Steps
+    // are parsed operands plus the iterations of long builtin loops. Exceeding either limit
+    // throws EvaluationBudgetExceededException, and earlier statements of the line stay applied.
+    public synchronized void setEvaluationBudget(long timeoutMillis, long maxSteps) {
+        if (timeoutMillis < 0 || maxSteps < 0) {
+            throw new CalculatorException("Evaluation budget must not be negative.");
         }
-        return Collections.unmodifiableList(results);
+        this.evaluationTimeoutMillis = timeoutMillis;
+        this.evaluationStepLimit = maxSteps;
+    }
+
+    public boolean isPrecisionEnabled() {
+        return precisionEnabled;
     }
 
-    public synchronized Map<String, Double> getVariablesSnapshot() {
-        return state.getVariablesSnapshot();
+    public synchronized void setPrecisionEnabled(boolean enabled) {
+        this.precisionEnabled = enabled;
     }
 
-    public synchronized Map<String, Double> getConstantsSnapshot() {
-        return Collections.unmodifiableMap(state.getConstantsSnapshot());
+    public int getPrecisionDigits() {
+        return mathContext.getPrecision();
     }
 
-    public synchronized Map<String, String> getFunctionsHelp() {
-        Map<String, String> details = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-        for (FunctionDefinition definition : functions.values()) {
-            details.put(definition.name(), definition.description());
+    public synchronized void setPrecisionDigits(int digits) {
+        if (digits < 1 || digits > MAX_PRECISION_DIGITS) {
+            throw new CalculatorException("Precision must be between 1 and " + MAX_PRECISION_DIGITS + " digits.");
         }
-        return details;
+        this.mathContext = new MathContext(digits, RoundingMode.HALF_EVEN);
+    }
+
+    public EngineSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public Map<String, Double> getVariablesSnapshot() {
+        return snapshot.getVariables();
+    }
+
+    public Map<String, Double> getConstantsSnapshot() {
+        return DEFAULT_CONSTANTS;
+    }
+
+    public Map<String, String> getFunctionsHelp() {
+        return BuiltinFunctionCatalog.help();
     }
 
     public synchronized void reset() {
         state.reset();
+        publish();
     }
 
-    public synchronized double getAns() {
-        return state.getAns();
+    public double getAns() {
+        return snapshot.getAns();
     }
 
-    public synchronized double memoryRecall() {
-        return state.getMemory();
+    public double memoryRecall() {
+        return snapshot.getMemory();
     }
 
     public synchronized void memoryStore(double value) {
         state.setMemory(validateFinite(value, "Memory value"));
+        publish();
     }
 
     public synchronized void memoryAdd(double value) {
         state.setMemory(validateFinite(state.getMemory() + value, "Memory value"));
+        publish();
     }
 
     public synchronized void memorySubtract(double value) {
         state.setMemory(validateFinite(state.getMemory() - value, "Memory value"));
+        publish();
     }
 
     public synchronized void memoryClear() {
         state.setMemory(0d);
+        publish();
     }
 
     public synchronized void setRandomSeed(long seed) {
         random.setSeed(seed);
     }
 
+    public synchronized void setVariable(String name, double value) {
+        if (!isIdentifier(name)) {
+            throw new CalculatorException("Invalid variable name: " + name);
+        }
+        if (isReservedName(name)) {
+            throw new CalculatorException("Cannot assign to reserved name: " + name);
+        }
+        checkVariableBudget(name);
+        state.putVariable(name, validateFinite(value, "Variable value"));
+        publish();
+    }
+
+    public int getVariableLimit() {
+        return variableLimit;
+    }
+
+    public synchronized void setVariableLimit(int limit) {
+        if (limit < 0) {
+            throw new CalculatorException("Variable limit must not be negative.");
+        }
+        this.variableLimit = limit;
+    }
+
     public synchronized boolean deleteVariable(String name) {
         if (state.isConstant(name)) {
             throw new CalculatorException("Cannot delete constant: " + name);
         }
-        return state.removeVariable(name);
+        boolean removed = state.removeVariable(name);
+        publish();
+        return removed;
+    }
+
+    static boolean isDefaultConstant(String name) {
+        return DEFAULT_CONSTANTS.containsKey(name);
+    }
+
+    // Lets a caller that reused another evaluation's result leave the engine as if it had
+    // evaluated the statement itself.
+    synchronized void recordAns(double value) {
+        state.setAns(validateFinite(value, "Expression result"));
+        publish();
     }
 
-    private double evaluateSingle(String input) {
-        Matcher assignment = ASSIGNMENT_PATTERN.matcher(input);
-        if (assignment.matches()) {
-            String name = assignment.group(1);
-            String operator = assignment.group(2);
-            String expression = assignment.group(3);
-            return assign(name, operator, expression);
+    synchronized long estimateRetainedBytes() {
+        return state.estimateRetainedBytes();
+    }
+
+    synchronized void saveState(Properties target) {
+        target.setProperty("precision.enabled", Boolean.toString(precisionEnabled));
+        target.setProperty("precision.digits", Integer.toString(mathContext.getPrecision()));
+        state.saveTo(target);
+    }
+
+    synchronized void restoreState(Properties source) {
+        precisionEnabled = Boolean.parseBoolean(source.getProperty("precision.enabled"));
+        String digits = source.getProperty("precision.digits");
+        if (digits != null) {
+            setPrecisionDigits(Integer.parseInt(digits));
         }
+        state.restoreFrom(source);
+        publish();
+    }
 
-        double result = parseExpression(input);
+    private <T> T withBudget(Supplier<T> body) {
+        long timeout = evaluationTimeoutMillis;
+        long steps = evaluationStepLimit;
+        if (timeout == EvaluationGuard.UNLIMITED && steps == EvaluationGuard.UNLIMITED) {
+            return body.get();
+        }
+        return EvaluationGuard.withBudget(timeout, steps).run(body);
+    }
+
+    private void checkVariableBudget(String name) {
+        if (!state.hasVariable(name) && state.variableCount() >= variableLimit) {
+            throw new CalculatorException("Variable limit of " + variableLimit + " reached; delete a variable before assigning " + name + ".");
+        }
+    }
+
+    private void publish() {
+        EngineSnapshot previous = snapshot;
+        snapshot = new EngineSnapshot(previous.getVersion() + 1, state.getAns(), state.getMemory(), state.getVariablesSnapshot());
+    }
+
+    private Random currentRandom() {
+        return random;
+    }
+
+    // Tokenizes the whole line once; statements are then evaluated as token ranges.
+    private static List<Token> splitStatements(String statement, StatementSpans spans) {
+        List<Token> tokens = StatementSplitter.split(statement == null ? "" : statement, spans);
+        if (spans.size() == 0) {
+            throw new CalculatorException("Input is empty.");
+        }
+        return tokens;
+    }
+
+    private static boolean isAssignment(List<Token> tokens, int start) {
+        return tokens.get(start).type == TokenType.IDENTIFIER
+                && ExpressionParser.isAssignment(tokens.get(start + 1).type);
+    }
+
+    private double evaluateSingle(List<Token> tokens, int start, int end) {
+        if (isAssignment(tokens, start)) {
+            return assign(tokens.get(start), tokens.get(start + 1), tokens, start + 2, end);
+        }
+
+        double result = parseExpression(tokens, start, end);
         state.setAns(validateFinite(result, "Expression result"));
         return state.getAns();
     }
 
-    private double assign(String name, String operator, String expression) {
-        if (isReservedName(name)) {
-            throw new CalculatorException("Cannot assign to reserved name: " + name);
-        }
-        double rhs = parseExpression(expression);
-        double current = state.hasVariable(name) ? state.getVariable(name) : 0d;
+    private double assign(Token target, Token operator, List<Token> tokens, int start, int end) {
+        String name = assignableName(target);
+        checkVariableBudget(name);
+        double rhs = parseExpression(tokens, start, end);
+        double current = operator.type == TokenType.ASSIGN || !state.hasVariable(name)
+                ? 0d : validateFinite(state.getVariable(name), name);
         double result;
-        switch (operator) {
-            case "=":
+        switch (operator.type) {
+            case ASSIGN:
                 result = rhs;
                 break;
-            case "+=":
+            case PLUS_ASSIGN:
                 result = current + rhs;
                 break;
-            case "-=":
+            case MINUS_ASSIGN:
                 result = current - rhs;
                 break;
-            case "*=":
+            case STAR_ASSIGN:
                 result = current * rhs;
                 break;
-            case "/=":
+            case SLASH_ASSIGN:
                 if (rhs == 0d) {
-                    throw new CalculatorException("Division by zero in '/=' assignment.");
+                    throw new CalculatorException(CalculatorErrorCode.DIVISION_BY_ZERO, null, operator.position);
                 }
                 result = current / rhs;
                 break;
-            case "%=":
+            case PERCENT_ASSIGN:
                 if (rhs == 0d) {
-                    throw new CalculatorException("Modulo by zero in '%=' assignment.");
+                    throw new CalculatorException(CalculatorErrorCode.MODULO_BY_ZERO, null, operator.position);
                 }
                 result = current % rhs;
                 break;
-            case "^=":
+            case CARET_ASSIGN:
                 result = Math.pow(current, rhs);
                 break;
             default:
-                throw new CalculatorException("Unsupported assignment operator: " + operator);
+                throw new CalculatorException("Unsupported assignment operator: " + operator.text);
         }
         result = validateFinite(result, "Assignment result");
         state.putVariable(name, result);
@@ -165,6 +434,138 @@ public class CalculatorEngine {
         return result;
     }
 
+    // The tokenizer reads any Unicode letter as part of a name, but variables stay ASCII, as
+    // setVariable requires.
+    private String assignableName(Token target) {
+        String name = target.text;
+        if (!isIdentifier(name)) {
+            throw new CalculatorException(CalculatorErrorCode.SYNTAX, "Invalid variable name: " + name, target.position);
+        }
+        if (isReservedName(name)) {
+            throw new CalculatorException("Cannot assign to reserved name: " + name);
+        }
+        return name;
+    }
+
+    private BigDecimal evaluateSinglePrecise(List<Token> tokens, int start, int end) {
+        if (isAssignment(tokens, start)) {
+            return assignPrecise(tokens.get(start), tokens.get(start + 1), tokens, start + 2, end);
+        }
+
+        BigDecimal result = parsePreciseExpression(tokens, start, end);
+        state.setPreciseAns(result);
+        return result;
+    }
+
+    private BigDecimal assignPrecise(Token target, Token operator, List<Token> tokens, int start, int end) {
+        String name = assignableName(target);
+        checkVariableBudget(name);
+        BigDecimal rhs = parsePreciseExpression(tokens, start, end);
+        BigDecimal current = state.hasVariable(name) ? resolvePreciseVariable(name) : BigDecimal.ZERO;
+        BigDecimal result;
+        try {
+            switch (operator.type) {
+                case ASSIGN:
+                    result = rhs;
+                    break;
+                case PLUS_ASSIGN:
+                    result = current.add(rhs, mathContext);
+                    break;
+                case MINUS_ASSIGN:
+                    result = current.subtract(rhs, mathContext);
+                    break;
+                case STAR_ASSIGN:
+                    result = current.multiply(rhs, mathContext);
+                    break;
+                case SLASH_ASSIGN:
+                    if (rhs.signum() == 0) {
+                        throw new CalculatorException(CalculatorErrorCode.DIVISION_BY_ZERO, null, operator.position);
+                    }
+                    result = current.divide(rhs, mathContext);
+                    break;
+                case PERCENT_ASSIGN:
+                    if (rhs.signum() == 0) {
+                        throw new CalculatorException(CalculatorErrorCode.MODULO_BY_ZERO, null, operator.position);
+                    }
+                    result = current.remainder(rhs, mathContext);
+                    break;
+                case CARET_ASSIGN:
+                    result = PreciseExpressionParser.power(current, rhs, mathContext);
+                    break;
+                default:
+                    throw new CalculatorException("Unsupported assignment operator: " + operator.text);
+            }
+        } catch (ArithmeticException ex) {
+            throw new CalculatorException("Arithmetic error: " + ex.getMessage(), ex);
+        }
+        state.putPreciseVariable(name, result);
+        state.setPreciseAns(result);
+        return result;
+    }
+
+    private BigDecimal parsePreciseExpression(List<Token> tokens, int start, int end) {
+        PreciseExpressionParser parser = new PreciseExpressionParser(
+                tokens,
+                start,
+                end,
+                mathContext,
+                this::resolvePreciseSymbol,
+                this::invokePreciseFunction,
+                OperatorPrecedenceParser.DEFAULT_MAX_DEPTH
+        );
+        return parser.parse();
+    }
+
+    private BigDecimal resolvePreciseSymbol(String symbol) {
+        if ("ans".equalsIgnoreCase(symbol)) {
+            BigDecimal preciseAns = state.getPreciseAns();
+            return preciseAns != null ? preciseAns : BigDecimal.valueOf(state.getAns());
+        }
+        if ("memory".equalsIgnoreCase(symbol) || "mem".equalsIgnoreCase(symbol)) {
+            return BigDecimal.valueOf(state.getMemory());
+        }
+        if (state.hasVariable(symbol)) {
+            return resolvePreciseVariable(symbol);
+        }
+        if (state.hasConstant(symbol)) {
+            return PreciseMath.constant(symbol, state.resolveConstant(symbol), mathContext);
+        }
+        throw new CalculatorException(CalculatorErrorCode.UNKNOWN_SYMBOL, symbol, -1);
+    }
+
+    private BigDecimal resolvePreciseVariable(String name) {
+        BigDecimal precise = state.getPreciseVariable(name);
+        return precise != null ? precise : BigDecimal.valueOf(state.getVariable(name));
+    }
+
+    private BigDecimal invokePreciseFunction(String name, List<BigDecimal> args) {
+        FunctionDefinition definition = requireFunction(name, args.size());
+        PreciseFunctionCatalog.PreciseFunction precise = PreciseFunctionCatalog.get(name);
+        if (precise != null) {
+            return precise.apply(args, mathContext).round(mathContext);
+        }
+        List<Double> approximations = new ArrayList<>(args.size());
+        for (BigDecimal arg : args) {
+            approximations.add(validateFinite(arg.doubleValue(), name + " argument"));
+        }
+        double result = validateFinite(definition.invoke(functionContext, approximations), "Function result");
+        return new BigDecimal(result, mathContext);
+    }
+
+    private static boolean isIdentifier(String name) {
+        if (name == null || name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean letter = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_';
+            if (!letter && (i == 0 || c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean isReservedName(String name) {
         return "ans".equalsIgnoreCase(name)
                 || "memory".equalsIgnoreCase(name)
@@ -173,48 +574,57 @@ public class CalculatorEngine {
                 || functions.containsKey(name);
     }
 
-    private double parseExpression(String expression) {
+    private double parseExpression(List<Token> tokens, int start, int end) {
         ExpressionParser parser = new ExpressionParser(
-                expression,
+                tokens,
+                start,
+                end,
                 this::resolveSymbol,
-                this::invokeFunction
+                this::invokeFunction,
+                OperatorPrecedenceParser.DEFAULT_MAX_DEPTH
         );
         return validateFinite(parser.parse(), "Expression result");
     }
 
+    // ans and variables set in precision mode beyond double range have no double value.
     private double resolveSymbol(String symbol) {
         if ("ans".equalsIgnoreCase(symbol)) {
-            return state.getAns();
+            return validateFinite(state.getAns(), symbol);
         }
         if ("memory".equalsIgnoreCase(symbol) || "mem".equalsIgnoreCase(symbol)) {
             return state.getMemory();
         }
         if (state.hasVariable(symbol)) {
-            return state.getVariable(symbol);
+            return validateFinite(state.getVariable(symbol), symbol);
         }
         if (state.hasConstant(symbol)) {
             return state.resolveConstant(symbol);
         }
-        throw new CalculatorException("Unknown symbol: " + symbol);
+        throw new CalculatorException(CalculatorErrorCode.UNKNOWN_SYMBOL, symbol, -1);
     }
 
     private double invokeFunction(String name, List<Double> args) {
+        FunctionDefinition definition = requireFunction(name, args.size());
+        return validateFinite(definition.invoke(functionContext, args), "Function result");
+    }
+
+    private FunctionDefinition requireFunction(String name, int argCount) {
         FunctionDefinition definition = functions.get(name);
         if (definition == null) {
-            throw new CalculatorException("Unknown function: " + name);
+            throw new CalculatorException(CalculatorErrorCode.UNKNOWN_FUNCTION, name, -1);
         }
-        if (args.size() < definition.minArgs()) {
+        if (argCount < definition.minArgs()) {
             throw new CalculatorException(name + " requires at least " + definition.minArgs() + " argument(s).");
         }
-        if (definition.maxArgs() >= 0 && args.size() > definition.maxArgs()) {
+        if (definition.maxArgs() >= 0 && argCount > definition.maxArgs()) {
             throw new CalculatorException(name + " accepts at most " + definition.maxArgs() + " argument(s).");
         }
-        return validateFinite(definition.implementation().apply(args), "Function result");
+        return definition;
     }
 
     private static double validateFinite(double value, String label) {
         if (!Double.isFinite(value)) {
-            throw new CalculatorException(label + " is not finite.");
+            throw new CalculatorException(CalculatorErrorCode.NOT_FINITE, label, -1);
         }
         return value;
     }
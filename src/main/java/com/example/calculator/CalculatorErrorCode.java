@@ -0,0 +1,32 @@
+package com.example.calculator;
+
+public enum CalculatorErrorCode {
+    GENERIC("", ""),
+    SYNTAX("", ""),
+    DIVISION_BY_ZERO("Division by zero.", ""),
+    MODULO_BY_ZERO("Modulo by zero.", ""),
+    UNKNOWN_SYMBOL("Unknown symbol: ", ""),
+    UNKNOWN_FUNCTION("Unknown function: ", ""),
+    NOT_FINITE("", " is not finite."),
+    BUDGET_EXCEEDED("", "");
+
+    private final String prefix;
+    private final String suffix;
+
+    CalculatorErrorCode(String prefix, String suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    String describe(String detail, int position) {
+        StringBuilder message = new StringBuilder(prefix);
+        if (detail != null) {
+            message.append(detail);
+        }
+        message.append(suffix);
+        if (position >= 0) {
+            message.append(" (near position ").append(position).append(')');
+        }
+        return message.toString();
+    }
+}
@@ -1,11 +1,62 @@
 package com.example.calculator;
 
 public class CalculatorException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final CalculatorErrorCode errorCode;
+    private final String detail;
+    private final int position;
+    private String message;
+
     public CalculatorException(String message) {
         super(message);
+        this.errorCode = CalculatorErrorCode.GENERIC;
+        this.detail = null;
+        this.position = -1;
     }
 
     public CalculatorException(String message, Throwable cause) {
         super(message, cause);
+        this.errorCode = CalculatorErrorCode.GENERIC;
+        this.detail = null;
+        this.position = -1;
+    }
+
+    CalculatorException(CalculatorErrorCode errorCode, String message) {
+        super(message);
+        this.errorCode = errorCode;
+        this.detail = null;
+        this.position = -1;
+    }
+
+    // Expected evaluation failures (bad syntax, division by zero, unknown names) are thrown often
+    // enough in batch work that stack capture and message formatting dominate; these instances
+    // skip the stack trace and only format their message when it is asked for.
+    CalculatorException(CalculatorErrorCode errorCode, String detail, int position) {
+        super(null, null, false, false);
+        this.errorCode = errorCode;
+        this.detail = detail;
+        this.position = position;
+    }
+
+    public CalculatorErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    // Input offset the error refers to, or -1 when it is not tied to a position.
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public String getMessage() {
+        String eager = super.getMessage();
+        if (eager != null || errorCode == CalculatorErrorCode.GENERIC) {
+            return eager;
+        }
+        if (message == null) {
+            message = errorCode.describe(detail, position);
+        }
+        return message;
     }
 }
@@ -0,0 +1,343 @@
+package com.example.calculator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// POST /evaluate with either a JSON array of expressions or
+// {"expressions": [...], "variables": {"x": 2}, "session": "id"}. Without a session every request
+// gets a fresh engine; with one the batch runs on that registry session and its state carries
+// over. Items run in order, so later items see earlier assignments. A failing item reports its
+// error in place and does not stop the rest of the batch. Batches are admitted through an
+// EvaluationExecutor; when it is saturated the answer is 503 with Retry-After. Pure items are
+// shared across concurrent requests through an EvaluationCoalescer, and every item runs under
+// an evaluation budget so one pathological expression cannot hold a worker.
+final class CalculatorHttpServer implements Closeable {
+    static final String PATH = "/evaluate";
+    static final String STATS_PATH = "/stats";
+    static final int MAX_BODY_BYTES = 1 << 20;
+    static final int MAX_BATCH_SIZE = 10_000;
+    static final long SESSION_IDLE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    static final int SESSION_VARIABLE_LIMIT = 1_000;
+    static final int SESSION_HISTORY_LIMIT = 1_000;
+    static final int EVALUATION_QUEUE_CAPACITY = 256;
+    static final long EVALUATION_QUEUE_DEADLINE_MILLIS = 2_000;
+    static final long EVALUATION_TIMEOUT_MILLIS = 1_000;
+    static final long EVALUATION_STEP_LIMIT = 10_000_000;
+    static final long RESULT_CACHE_TTL_MILLIS = 1_000;
+    static final int RESULT_CACHE_ENTRIES = 4_096;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SessionRegistry sessions;
+    private final EvaluationExecutor evaluations;
+    private final EvaluationCoalescer coalescer = new EvaluationCoalescer(RESULT_CACHE_TTL_MILLIS, RESULT_CACHE_ENTRIES);
+    private final ScheduledExecutorService evictor;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private CalculatorHttpServer(HttpServer server, ExecutorService executor, SessionRegistry sessions,
+                                 EvaluationExecutor evaluations) {
+        this.server = server;
+        this.executor = executor;
+        this.sessions = sessions;
+        this.evaluations = evaluations;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "calculator-session-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static CalculatorHttpServer start(int port) throws IOException {
+        return start(port,
+                new SessionRegistry(SESSION_IDLE_TTL_MILLIS, SESSION_VARIABLE_LIMIT, SESSION_HISTORY_LIMIT),
+                new EvaluationExecutor(Runtime.getRuntime().availableProcessors(), EVALUATION_QUEUE_CAPACITY,
+                        EVALUATION_QUEUE_DEADLINE_MILLIS));
+    }
+
+    // The server owns both collaborators from here on and closes them with itself.
+    static CalculatorHttpServer start(int port, SessionRegistry sessions, EvaluationExecutor evaluations) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = CalculatorServer.newSessionExecutor();
+        CalculatorHttpServer httpServer = new CalculatorHttpServer(server, executor, sessions, evaluations);
+        server.createContext(PATH, httpServer::handle);
+        server.createContext(STATS_PATH, httpServer::handleStats);
+        server.setExecutor(executor);
+        server.start();
+        long period = Math.max(1_000L, Math.min(SESSION_IDLE_TTL_MILLIS / 2, TimeUnit.MINUTES.toMillis(1)));
+        httpServer.evictor.scheduleWithFixedDelay(sessions::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        return httpServer;
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    void awaitTermination() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        evictor.shutdownNow();
+        evaluations.close();
+        executor.shutdownNow();
+        stopped.countDown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, errorBody("Use POST."));
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                send(exchange, 413, errorBody("Request body exceeds " + MAX_BODY_BYTES + " bytes."));
+                return;
+            }
+            Object request;
+            try {
+                request = JsonCodec.parse(new String(body, StandardCharsets.UTF_8));
+            } catch (CalculatorException ex) {
+                send(exchange, 400, errorBody(ex.getMessage()));
+                return;
+            }
+            EvaluationExecutor.Outcome<String> outcome = await(evaluations.submit(() -> evaluateBatch(request, sessions, coalescer)));
+            switch (outcome.status()) {
+                case COMPLETED:
+                    send(exchange, 200, outcome.value());
+                    break;
+                case FAILED:
+                    send(exchange, outcome.failure() instanceof CalculatorException ? 400 : 500, errorBody(outcome.error()));
+                    break;
+                default:
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    send(exchange, 503, errorBody(outcome.error()));
+                    break;
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            StringBuilder out = new StringBuilder("{");
+            out.append("\"submitted\":").append(evaluations.submittedCount());
+            out.append(",\"completed\":").append(evaluations.completedCount());
+            out.append(",\"failed\":").append(evaluations.failedCount());
+            out.append(",\"rejected\":").append(evaluations.rejectedCount());
+            out.append(",\"expired\":").append(evaluations.expiredCount());
+            out.append(",\"queued\":").append(evaluations.queuedCount());
+            out.append(",\"active\":").append(evaluations.activeCount());
+            out.append(",\"evaluations\":").append(coalescer.evaluationCount());
+            out.append(",\"coalesced\":").append(coalescer.coalescedCount());
+            out.append(",\"cacheHits\":").append(coalescer.cacheHitCount());
+            out.append(",\"sessions\":").append(sessions.size());
+            out.append(",\"sessionBytes\":").append(sessions.retainedBytes());
+            send(exchange, 200, out.append('}').toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static <T> EvaluationExecutor.Outcome<T> await(CompletableFuture<EvaluationExecutor.Outcome<T>> future)
+            throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for evaluation.");
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    static String evaluateBatch(Object request) {
+        return evaluateBatch(request, null, null);
+    }
+
+    static String evaluateBatch(Object request, SessionRegistry sessions, EvaluationCoalescer coalescer) {
+        List<?> expressions;
+        Map<?, ?> variables = Collections.emptyMap();
+        String sessionId = null;
+        if (request instanceof List) {
+            expressions = (List<?>) request;
+        } else if (request instanceof Map) {
+            Map<?, ?> object = (Map<?, ?>) request;
+            Object items = object.get("expressions");
+            if (!(items instanceof List)) {
+                throw new CalculatorException("\"expressions\" must be an array of strings.");
+            }
+            expressions = (List<?>) items;
+            Object bindings = object.get("variables");
+            if (bindings instanceof Map) {
+                variables = (Map<?, ?>) bindings;
+            } else if (bindings != null) {
+                throw new CalculatorException("\"variables\" must be an object of numbers.");
+            }
+            Object session = object.get("session");
+            if (session instanceof String) {
+                sessionId = (String) session;
+            } else if (session != null) {
+                throw new CalculatorException("\"session\" must be a string.");
+            }
+        } else {
+            throw new CalculatorException("Request must be an array or an object with \"expressions\".");
+        }
+        if (expressions.size() > MAX_BATCH_SIZE) {
+            throw new CalculatorException("Batch exceeds " + MAX_BATCH_SIZE + " expressions.");
+        }
+        if (sessionId == null) {
+            CalculatorEngine engine = new CalculatorEngine();
+            engine.setEvaluationBudget(EVALUATION_TIMEOUT_MILLIS, EVALUATION_STEP_LIMIT);
+            return evaluateBatch(engine, null, expressions, variables, coalescer);
+        }
+        if (sessions == null) {
+            throw new CalculatorException("Sessions are not enabled.");
+        }
+        List<?> items = expressions;
+        Map<?, ?> bindings = variables;
+        return sessions.withSession(sessionId, processor -> evaluateSessionBatch(processor, items, bindings));
+    }
+
+    // Session items go through the processor, so the session's precision mode and history apply
+    // as they do over TCP. The HTTP budget only holds for this batch; the session keeps its own.
+    private static String evaluateSessionBatch(CalculatorCommandProcessor processor, List<?> expressions,
+                                               Map<?, ?> variables) {
+        CalculatorEngine engine = processor.engine();
+        long timeoutMillis = engine.getEvaluationTimeoutMillis();
+        long stepLimit = engine.getEvaluationStepLimit();
+        engine.setEvaluationBudget(EVALUATION_TIMEOUT_MILLIS, EVALUATION_STEP_LIMIT);
+        try {
+            return evaluateBatch(engine, processor, expressions, variables, null);
+        } finally {
+            engine.setEvaluationBudget(timeoutMillis, stepLimit);
+        }
+    }
+
+    private static String evaluateBatch(CalculatorEngine engine, CalculatorCommandProcessor processor,
+                                        List<?> expressions, Map<?, ?> variables, EvaluationCoalescer coalescer) {
+        for (Map.Entry<?, ?> binding : variables.entrySet()) {
+            if (!(binding.getValue() instanceof Double)) {
+                throw new CalculatorException("Variable " + binding.getKey() + " must be a number.");
+            }
+            engine.setVariable((String) binding.getKey(), (Double) binding.getValue());
+        }
+
+        StringBuilder out = new StringBuilder(32 + expressions.size() * 24);
+        out.append("{\"results\":[");
+        for (int i = 0; i < expressions.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            Object expression = expressions.get(i);
+            if (!(expression instanceof String)) {
+                out.append("{\"error\":\"Expression must be a string.\"}");
+                continue;
+            }
+            if (processor == null) {
+                appendResult(out, engine, (String) expression, coalescer);
+            } else {
+                appendResult(out, processor, (String) expression);
+            }
+        }
+        return out.append("]}").toString();
+    }
+
+    private static void appendResult(StringBuilder out, CalculatorEngine engine, String expression,
+                                     EvaluationCoalescer coalescer) {
+        double[] values;
+        try {
+            values = coalescer == null
+                    ? engine.evaluateAllToArray(expression)
+                    : coalescer.evaluateAllToArray(engine, expression);
+        } catch (CalculatorException ex) {
+            out.append("{\"error\":");
+            JsonCodec.appendString(out, String.valueOf(ex.getMessage()));
+            out.append('}');
+            return;
+        }
+        NumberFormatUtil.append(out.append("{\"value\":"), values[values.length - 1]);
+        out.append(",\"values\":[");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            NumberFormatUtil.append(out, values[i]);
+        }
+        out.append("]}");
+    }
+
+    // Processor output is already a plain or scientific decimal, which JSON takes as a number.
+    private static void appendResult(StringBuilder out, CalculatorCommandProcessor processor, String expression) {
+        List<String> values;
+        try {
+            values = processor.processExpression(expression).outputLines();
+        } catch (CalculatorException ex) {
+            out.append("{\"error\":");
+            JsonCodec.appendString(out, String.valueOf(ex.getMessage()));
+            out.append('}');
+            return;
+        }
+        out.append("{\"value\":").append(values.get(values.size() - 1));
+        out.append(",\"values\":[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(values.get(i));
+        }
+        out.append("]}");
+    }
+
+    private static byte[] readBody(InputStream input) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            body.write(chunk, 0, read);
+            if (body.size() > MAX_BODY_BYTES) {
+                return null;
+            }
+        }
+        return body.toByteArray();
+    }
+
+    private static String errorBody(String message) {
+        StringBuilder out = new StringBuilder("{\"error\":");
+        JsonCodec.appendString(out, String.valueOf(message));
+        return out.append('}').toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.calculator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Loopback load generator for --serve: opens sessions from a fixed number of client threads,
+// sends a short script per session and reports sessions/sec and request latency percentiles.
+public final class CalculatorLoadClient {
+    private static final String[] SCRIPT = {
+            "x = 12",
+            "y = sqrt(x) * pi",
+            "sum(x, y, 5); avg(1, 2, 3, 4)",
+            "comb(60, 30) * pct(3, 7)",
+            "x ^= 2; x"
+    };
+
+    private CalculatorLoadClient() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 7070;
+        int sessions = 1000;
+        int concurrency = 16;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--sessions":
+                    sessions = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+        Report report = run(port, sessions, concurrency);
+        System.out.println(report.describe());
+    }
+
+    static Report run(int port, int sessions, int concurrency) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger remaining = new AtomicInteger(sessions);
+        AtomicInteger failures = new AtomicInteger();
+        long started = System.nanoTime();
+        try {
+            List<Future<long[]>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(clients.submit(() -> {
+                    long[] latencies = new long[0];
+                    int count = 0;
+                    while (remaining.getAndDecrement() > 0) {
+                        try {
+                            long[] session = runSession(port);
+                            if (count + session.length > latencies.length) {
+                                latencies = Arrays.copyOf(latencies, Math.max(16, (count + session.length) * 2));
+                            }
+                            System.arraycopy(session, 0, latencies, count, session.length);
+                            count += session.length;
+                        } catch (IOException ex) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            List<long[]> parts = new ArrayList<>();
+            int total = 0;
+            for (Future<long[]> worker : workers) {
+                long[] part = worker.get();
+                parts.add(part);
+                total += part.length;
+            }
+            long elapsed = System.nanoTime() - started;
+            long[] all = new long[total];
+            int offset = 0;
+            for (long[] part : parts) {
+                System.arraycopy(part, 0, all, offset, part.length);
+                offset += part.length;
+            }
+            Arrays.sort(all);
+            return new Report(sessions - failures.get(), failures.get(), elapsed, all);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static long[] runSession(int port) throws IOException {
+        long[] latencies = new long[SCRIPT.length];
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            for (int i = 0; i < SCRIPT.length; i++) {
+                long sent = System.nanoTime();
+                writer.write(SCRIPT[i]);
+                writer.write('\n');
+                writer.flush();
+                String line;
+                do {
+                    line = reader.readLine();
+                    if (line == null) {
+                        throw new IOException("Server closed the session early.");
+                    }
+                } while (line.startsWith(CalculatorServer.OUTPUT_PREFIX));
+                if (!CalculatorServer.OK.equals(line)) {
+                    throw new IOException("Unexpected response: " + line);
+                }
+                latencies[i] = System.nanoTime() - sent;
+            }
+            writer.write("exit\n");
+            writer.flush();
+            reader.readLine();
+        }
+        return latencies;
+    }
+
+    static final class Report {
+        private final int sessions;
+        private final int failures;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+
+        Report(int sessions, int failures, long elapsedNanos, long[] sortedLatencies) {
+            this.sessions = sessions;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = sortedLatencies;
+        }
+
+        int sessions() {
+            return sessions;
+        }
+
+        int failures() {
+            return failures;
+        }
+
+        double sessionsPerSecond() {
+            return sessions / (elapsedNanos / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0d;
+            }
+            int index = (int) Math.ceil(percentile / 100d * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+
+        String describe() {
+            return String.format(Locale.ROOT,
+                    "sessions=%d failures=%d requests=%d sessions/sec=%.1f p50=%.3fms p99=%.3fms max=%.3fms",
+                    sessions, failures, sortedLatencies.length, sessionsPerSecond(),
+                    percentileMillis(50), percentileMillis(99), percentileMillis(100));
+        }
+    }
+}
@@ -1,10 +1,36 @@
 package com.example.calculator;
 
+import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.List;
 
 final class CalculatorMath {
     private static final double BOOL_EPS = 1e-12;
+    private static final int SELECT_SORT_THRESHOLD = 16;
+    private static final int MAX_FACTORIAL = 170;
+    private static final int MAX_FIBONACCI = 92;
+    private static final long MAX_EXACT_INTEGER = 1L << 53;
+    // isPrime steps over odd divisors, so this hits a checkpoint every 32768 trial divisions.
+    private static final long CHECKPOINT_MASK = 0xFFFF;
+    private static final long CHECKPOINT_STEPS = (CHECKPOINT_MASK + 1) / 2;
+    // perm overflows by 171 iterations (171! > Double.MAX_VALUE) and comb, which runs over
+    // min(k, n - k), by 515 (C(1030, 515)), so neither loop is charged more than this.
+    private static final long MAX_PRODUCT_STEPS = 1_024;
+    private static final double[] FACTORIALS = buildFactorialTable();
+    private static final long[] FIBONACCI = buildFibonacciTable();
+    private static final double LANCZOS_G = 7d;
+    private static final double[] LANCZOS_COEFFICIENTS = {
+            0.99999999999980993,
+            676.5203681218851,
+            -1259.1392167224028,
+            771.32342877765313,
+            -176.61502916214059,
+            12.507343278686905,
+            -0.13857109526572012,
+            9.9843695780195716e-6,
+            1.5056327351493116e-7
+    };
+    private static final double HALF_LOG_TWO_PI = 0.5d * Math.log(2d * Math.PI);
 
     private CalculatorMath() {
     }
@@ -30,14 +56,35 @@ final class CalculatorMath {
 
     static double factorial(double value) {
         long n = requireNonNegativeInteger(value, "Factorial input");
-        if (n > 170) {
+        if (n > MAX_FACTORIAL) {
             throw new CalculatorException("Factorial input too large (max 170).");
         }
-        double result = 1d;
-        for (long i = 2; i <= n; i++) {
-            result *= i;
+        return FACTORIALS[(int) n];
+    }
+
+    static double logGamma(double x) {
+        if (Double.isNaN(x)) {
+            throw new CalculatorException("lgamma input must be finite.");
         }
-        return result;
+        if (x == Double.POSITIVE_INFINITY) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (x <= 0d && x == Math.rint(x)) {
+            throw new CalculatorException("lgamma is undefined for non-positive integers.");
+        }
+        if (x == Math.rint(x) && x <= MAX_FACTORIAL + 1) {
+            return Math.log(FACTORIALS[(int) x - 1]);
+        }
+        if (x < 0.5d) {
+            return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - logGamma(1d - x);
+        }
+        double z = x - 1d;
+        double series = LANCZOS_COEFFICIENTS[0];
+        for (int i = 1; i < LANCZOS_COEFFICIENTS.length; i++) {
+            series += LANCZOS_COEFFICIENTS[i] / (z + i);
+        }
+        double t = z + LANCZOS_G + 0.5d;
+        return HALF_LOG_TWO_PI + (z + 0.5d) * Math.log(t) - t + Math.log(series);
     }
 
     static boolean toBoolean(double value) {
@@ -97,57 +144,180 @@ final class CalculatorMath {
     }
 
     static double productOf(List<Double> values) {
-        double result = 1d;
-        for (double value : values) {
-            result *= value;
-            if (!Double.isFinite(result)) {
-                throw new CalculatorException("prod overflowed.");
-            }
+        double result = ParallelReduction.product(toArray(values));
+        if (!Double.isFinite(result)) {
+            throw new CalculatorException("prod overflowed.");
         }
         return result;
     }
 
+    static double sumOf(List<Double> values) {
+        return ParallelReduction.sum(toArray(values));
+    }
+
     static double averageOf(List<Double> values) {
-        double total = 0d;
-        for (double value : values) {
-            total += value;
-        }
-        return total / values.size();
+        return sumOf(values) / values.size();
+    }
+
+    static double minOf(List<Double> values) {
+        return ParallelReduction.min(toArray(values));
+    }
+
+    static double maxOf(List<Double> values) {
+        return ParallelReduction.max(toArray(values));
     }
 
     static double medianOf(List<Double> values) {
-        double[] copy = new double[values.size()];
-        for (int i = 0; i < values.size(); i++) {
-            copy[i] = values.get(i);
+        return medianOf(toArray(values));
+    }
+
+    static double medianOf(double[] values) {
+        int middle = values.length / 2;
+        double upper = select(values, middle);
+        if (values.length % 2 == 1) {
+            return upper;
         }
-        Arrays.sort(copy);
-        int middle = copy.length / 2;
-        if (copy.length % 2 == 1) {
-            return copy[middle];
+        return (maxOf(values, 0, middle) + upper) / 2d;
+    }
+
+    static double percentileOf(List<Double> args) {
+        double p = args.get(0);
+        if (!(p >= 0d && p <= 100d)) {
+            throw new CalculatorException("percentile(p, ...): p must be between 0 and 100.");
         }
-        return (copy[middle - 1] + copy[middle]) / 2d;
+        return quantileOf(toArray(args, 1), p / 100d);
     }
 
-    static double varianceOf(List<Double> values) {
-        double mean = averageOf(values);
-        double total = 0d;
-        for (double value : values) {
-            double diff = value - mean;
-            total += diff * diff;
+    static double quantilesOf(List<Double> args) {
+        long k = requireNonNegativeInteger(args.get(0), "quantiles k");
+        long q = requireInteger(args.get(1), "quantiles q");
+        if (q < 1) {
+            throw new CalculatorException("quantiles(k, q, ...): q must be positive.");
+        }
+        if (k > q) {
+            throw new CalculatorException("quantiles(k, q, ...): requires k <= q.");
         }
-        return total / values.size();
+        return quantileOf(toArray(args, 2), (double) k / q);
+    }
+
+    static double quantileOf(double[] values, double fraction) {
+        double rank = fraction * (values.length - 1);
+        int lower = (int) Math.floor(rank);
+        double lowerValue = select(values, lower);
+        double weight = rank - lower;
+        if (weight == 0d) {
+            return lowerValue;
+        }
+        double upperValue = minOf(values, lower + 1, values.length);
+        return lowerValue + weight * (upperValue - lowerValue);
+    }
+
+    // Introselect: median-of-three quickselect, falling back to a full sort of the
+    // remaining range once the partition depth exceeds 2*log2(n).
+    static double select(double[] values, int k) {
+        int left = 0;
+        int right = values.length - 1;
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(values.length));
+        while (right > left) {
+            if (right - left < SELECT_SORT_THRESHOLD || depthLimit-- == 0) {
+                Arrays.sort(values, left, right + 1);
+                break;
+            }
+            double pivot = medianOfThree(values[left], values[(left + right) >>> 1], values[right]);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    double swap = values[i];
+                    values[i] = values[j];
+                    values[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+        return values[k];
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        if (a < b) {
+            return b < c ? b : Math.max(a, c);
+        }
+        return a < c ? a : Math.max(b, c);
+    }
+
+    private static double maxOf(double[] values, int from, int to) {
+        double max = values[from];
+        for (int i = from + 1; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    private static double minOf(double[] values, int from, int to) {
+        double min = values[from];
+        for (int i = from + 1; i < to; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    static double[] toArray(List<Double> values) {
+        return toArray(values, 0);
+    }
+
+    static double[] toArray(List<Double> values, int offset) {
+        double[] copy = new double[values.size() - offset];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = values.get(offset + i);
+        }
+        return copy;
+    }
+
+    static double varianceOf(List<Double> values) {
+        return RunningStatistics.of(values).populationVariance();
     }
 
     static double standardDeviationOf(List<Double> values) {
         return Math.sqrt(varianceOf(values));
     }
 
+    static double sampleVarianceOf(List<Double> values) {
+        return RunningStatistics.of(values).sampleVariance();
+    }
+
+    static double sampleStandardDeviationOf(List<Double> values) {
+        return Math.sqrt(sampleVarianceOf(values));
+    }
+
+    static double skewnessOf(List<Double> values) {
+        return RunningStatistics.of(values).skewness();
+    }
+
+    static double kurtosisOf(List<Double> values) {
+        return RunningStatistics.of(values).excessKurtosis();
+    }
+
     static double permutation(double nValue, double kValue) {
         long n = requireNonNegativeInteger(nValue, "perm n");
         long k = requireNonNegativeInteger(kValue, "perm k");
         if (k > n) {
             throw new CalculatorException("perm(n, k) requires k <= n.");
         }
+        EvaluationGuard.checkpoint(Math.min(k, MAX_PRODUCT_STEPS));
         double result = 1d;
         for (long i = 0; i < k; i++) {
             result *= (n - i);
@@ -165,6 +335,7 @@ final class CalculatorMath {
             throw new CalculatorException("comb(n, k) requires k <= n.");
         }
         k = Math.min(k, n - k);
+        EvaluationGuard.checkpoint(Math.min(k, MAX_PRODUCT_STEPS));
         double result = 1d;
         for (long i = 1; i <= k; i++) {
             result = result * (n - k + i) / i;
@@ -177,20 +348,46 @@ final class CalculatorMath {
 
     static double fibonacci(double nValue) {
         long n = requireNonNegativeInteger(nValue, "fib n");
-        if (n > 92) {
+        if (n > MAX_FIBONACCI) {
             throw new CalculatorException("fib(n): n too large (max 92).");
         }
-        if (n <= 1) {
-            return n;
+        return FIBONACCI[(int) n];
+    }
+
+    static double fibonacciMod(double nValue, double mValue) {
+        long n = requireNonNegativeInteger(nValue, "fibmod n");
+        long m = requireInteger(mValue, "fibmod m");
+        if (m <= 0) {
+            throw new CalculatorException("fibmod(n, m): m must be positive.");
+        }
+        if (m > MAX_EXACT_INTEGER) {
+            throw new CalculatorException("fibmod(n, m): m too large (max 2^53).");
+        }
+        if (m == 1) {
+            return 0d;
         }
+        // Fast doubling: F(2k) = F(k) * (2F(k+1) - F(k)), F(2k+1) = F(k)^2 + F(k+1)^2.
         long a = 0;
         long b = 1;
-        for (long i = 2; i <= n; i++) {
-            long next = a + b;
-            a = b;
-            b = next;
+        for (int bit = 63 - Long.numberOfLeadingZeros(n); bit >= 0; bit--) {
+            long c = multiplyMod(a, Math.floorMod(2 * b - a, m), m);
+            long d = Math.floorMod(multiplyMod(a, a, m) + multiplyMod(b, b, m), m);
+            if (((n >>> bit) & 1L) == 0) {
+                a = c;
+                b = d;
+            } else {
+                a = d;
+                b = Math.floorMod(c + d, m);
+            }
         }
-        return b;
+        return a;
+    }
+
+    private static long multiplyMod(long a, long b, long m) {
+        if (m <= 3037000499L) {
+            return (a * b) % m;
+        }
+        return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).mod(BigInteger.valueOf(m)).longValue();
     }
 
     static boolean isPrime(double value) {
@@ -206,7 +403,28 @@ final class CalculatorMath {
             if (n % i == 0) {
                 return false;
             }
+            if ((i & CHECKPOINT_MASK) == 1) {
+                EvaluationGuard.checkpoint(CHECKPOINT_STEPS);
+            }
         }
         return true;
     }
+
+    private static double[] buildFactorialTable() {
+        double[] table = new double[MAX_FACTORIAL + 1];
+        table[0] = 1d;
+        for (int i = 1; i <= MAX_FACTORIAL; i++) {
+            table[i] = table[i - 1] * i;
+        }
+        return table;
+    }
+
+    private static long[] buildFibonacciTable() {
+        long[] table = new long[MAX_FIBONACCI + 1];
+        table[1] = 1L;
+        for (int i = 2; i <= MAX_FIBONACCI; i++) {
+            table[i] = table[i - 1] + table[i - 2];
+        }
+        return table;
+    }
 }
@@ -0,0 +1,361 @@
+package com.example.calculator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Selector-based variant of CalculatorServer speaking the same line protocol. Clients may
+// pipeline requests; each connection is pinned to one single-threaded worker, so its engine
+// stays single-writer and its responses are queued in request order.
+final class CalculatorNioServer implements Closeable {
+    static final int BUFFER_SIZE = 16 * 1024;
+    static final int MAX_LINE_BYTES = 1 << 20;
+    static final int MAX_IN_FLIGHT = 1024;
+    static final long MAX_PENDING_BYTES = 1L << 20;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService[] workers;
+    private final Queue<Connection> interestUpdates = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Thread selectorThread;
+    private volatile boolean running = true;
+    private long nextSessionId;
+
+    private CalculatorNioServer(Selector selector, ServerSocketChannel serverChannel, int workerCount) {
+        this.selector = selector;
+        this.serverChannel = serverChannel;
+        this.workers = new ExecutorService[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            String name = "calculator-nio-worker-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.selectorThread = new Thread(this::selectLoop, "calculator-nio-selector");
+    }
+
+    static CalculatorNioServer start(int port, int workerCount) throws IOException {
+        Selector selector = Selector.open();
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        channel.register(selector, SelectionKey.OP_ACCEPT);
+        CalculatorNioServer server = new CalculatorNioServer(selector, channel, Math.max(1, workerCount));
+        server.selectorThread.start();
+        return server;
+    }
+
+    int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    void awaitTermination() throws InterruptedException {
+        selectorThread.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        for (ExecutorService worker : workers) {
+            worker.shutdownNow();
+        }
+    }
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Connection pending;
+                while ((pending = interestUpdates.poll()) != null) {
+                    updateInterest(pending);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(connection);
+                        }
+                        if (key.isValid()) {
+                            updateInterest(connection);
+                        }
+                    } catch (IOException ex) {
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Selector failed: " + ex.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException ignored) {
+                // Shutting down anyway.
+            }
+        }
+    }
+
+    // A failed accept or channel setup only costs that one client; the selector keeps serving
+    // the others and retries the accept on the next select.
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException ex) {
+                System.err.println("Accept failed: " + ex.getMessage());
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                long id = nextSessionId++;
+                Connection connection = new Connection(channel, workers[(int) (id % workers.length)]);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException ex) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Never handed to a connection; nothing else to release.
+                }
+            }
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        readBuffer.clear();
+        int count = connection.channel.read(readBuffer);
+        if (count < 0) {
+            // Like BufferedReader.readLine, a final line without '\n' is still a request.
+            if (connection.lineLength > 0) {
+                connection.dispatchLine();
+            }
+            connection.inputClosed = true;
+            return;
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+            byte b = readBuffer.get();
+            if (b == '\n') {
+                connection.dispatchLine();
+            } else if (!connection.append(b)) {
+                connection.rejectLine();
+                return;
+            }
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        while (true) {
+            writeBuffer.clear();
+            for (ByteBuffer chunk : connection.outbound) {
+                if (!writeBuffer.hasRemaining()) {
+                    break;
+                }
+                ByteBuffer slice = chunk.duplicate();
+                if (slice.remaining() > writeBuffer.remaining()) {
+                    slice.limit(slice.position() + writeBuffer.remaining());
+                }
+                writeBuffer.put(slice);
+            }
+            writeBuffer.flip();
+            if (!writeBuffer.hasRemaining()) {
+                return;
+            }
+            int written = connection.channel.write(writeBuffer);
+            connection.consume(written);
+            if (writeBuffer.hasRemaining()) {
+                return;
+            }
+        }
+    }
+
+    private void updateInterest(Connection connection) {
+        SelectionKey key = connection.key;
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        // Read the flags before the queue: workers enqueue first and signal afterwards.
+        boolean closing = connection.closeAfterFlush;
+        boolean idle = connection.inFlight.get() == 0;
+        boolean drained = connection.outbound.isEmpty();
+        if (drained && closing) {
+            connection.close();
+            return;
+        }
+        if (drained && connection.inputClosed && idle) {
+            connection.close();
+            return;
+        }
+        int ops = 0;
+        boolean backlogged = connection.inFlight.get() >= MAX_IN_FLIGHT
+                || connection.pendingBytes.get() >= MAX_PENDING_BYTES;
+        if (!connection.inputClosed && !closing && !backlogged) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (!drained) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // Shutting down anyway.
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ExecutorService worker;
+        private final CalculatorCommandProcessor processor = new CalculatorCommandProcessor(new CalculatorEngine());
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong pendingBytes = new AtomicLong();
+        private byte[] line = new byte[128];
+        private int lineLength;
+        private SelectionKey key;
+        private boolean inputClosed;
+        private volatile boolean closeAfterFlush;
+        private volatile boolean closed;
+
+        private Connection(SocketChannel channel, ExecutorService worker) {
+            this.channel = channel;
+            this.worker = worker;
+        }
+
+        private boolean append(byte b) {
+            if (lineLength == MAX_LINE_BYTES) {
+                return false;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, Math.min(MAX_LINE_BYTES, line.length * 2));
+            }
+            line[lineLength++] = b;
+            return true;
+        }
+
+        private void dispatchLine() {
+            int length = lineLength;
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            String request = new String(line, 0, length, StandardCharsets.UTF_8);
+            lineLength = 0;
+            inFlight.incrementAndGet();
+            worker.execute(() -> evaluate(request));
+        }
+
+        private void rejectLine() {
+            inputClosed = true;
+            inFlight.incrementAndGet();
+            worker.execute(() -> {
+                enqueue(CalculatorServer.ERROR_PREFIX + "Line too long.\n", true);
+                finishRequest();
+            });
+        }
+
+        private void evaluate(String request) {
+            try {
+                if (closed || closeAfterFlush) {
+                    return;
+                }
+                StringWriter response = new StringWriter();
+                boolean open = CalculatorServer.respond(processor, request, response);
+                enqueue(response.toString(), !open);
+            } catch (IOException | RuntimeException ex) {
+                enqueue(CalculatorServer.ERROR_PREFIX + ex.getMessage() + "\n", false);
+            } finally {
+                finishRequest();
+            }
+        }
+
+        private void finishRequest() {
+            inFlight.decrementAndGet();
+            interestUpdates.add(this);
+            selector.wakeup();
+        }
+
+        private void enqueue(String response, boolean closeAfter) {
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            pendingBytes.addAndGet(bytes.length);
+            outbound.add(ByteBuffer.wrap(bytes));
+            if (closeAfter) {
+                closeAfterFlush = true;
+            }
+        }
+
+        private void consume(int written) {
+            pendingBytes.addAndGet(-written);
+            while (written > 0) {
+                ByteBuffer head = outbound.peek();
+                int step = Math.min(written, head.remaining());
+                head.position(head.position() + step);
+                written -= step;
+                if (!head.hasRemaining()) {
+                    outbound.poll();
+                }
+            }
+        }
+
+        private void close() {
+            closed = true;
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Connection is gone either way.
+            }
+        }
+    }
+}
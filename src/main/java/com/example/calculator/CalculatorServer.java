@@ -0,0 +1,167 @@
+package com.example.calculator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Line protocol: every request line gets zero or more "= <output>" lines followed by a single
+// "ok" or "error <message>" line; an exit command is answered with "bye" and closes the session.
+final class CalculatorServer implements Closeable {
+    static final String OUTPUT_PREFIX = "= ";
+    static final String OK = "ok";
+    static final String ERROR_PREFIX = "error ";
+    static final String BYE = "bye";
+
+    private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10;
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1_000;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final Thread acceptThread;
+    private volatile boolean running = true;
+
+    private CalculatorServer(ServerSocket serverSocket, ExecutorService sessions) {
+        this.serverSocket = serverSocket;
+        this.sessions = sessions;
+        this.acceptThread = new Thread(this::acceptLoop, "calculator-accept");
+    }
+
+    static CalculatorServer start(int port) throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        CalculatorServer server = new CalculatorServer(socket, newSessionExecutor());
+        server.acceptThread.start();
+        return server;
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    void awaitTermination() throws InterruptedException {
+        acceptThread.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        sessions.shutdownNow();
+        try {
+            sessions.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Virtual threads (Java 21+) are looked up reflectively so the build keeps targeting Java 8.
+    static ExecutorService newSessionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "calculator-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // Accept failures such as running out of file descriptors tend to persist, so retries back
+    // off exponentially until an accept succeeds again.
+    private void acceptLoop() {
+        long backoffMillis = MIN_ACCEPT_BACKOFF_MILLIS;
+        while (running) {
+            Socket client;
+            try {
+                client = serverSocket.accept();
+                backoffMillis = MIN_ACCEPT_BACKOFF_MILLIS;
+            } catch (IOException ex) {
+                if (!running) {
+                    return;
+                }
+                System.err.println("Accept failed: " + ex.getMessage() + " (retrying in " + backoffMillis + " ms)");
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMillis = Math.min(MAX_ACCEPT_BACKOFF_MILLIS, backoffMillis * 2);
+                continue;
+            }
+            try {
+                sessions.execute(() -> serve(client));
+            } catch (RuntimeException ex) {
+                closeQuietly(client);
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        CalculatorCommandProcessor processor = new CalculatorCommandProcessor(new CalculatorEngine());
+        try (Socket socket = client;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!respond(processor, line, writer)) {
+                    return;
+                }
+            }
+        } catch (SocketException ex) {
+            // Client went away; nothing left to answer.
+        } catch (IOException ex) {
+            System.err.println("Session I/O error: " + ex.getMessage());
+        }
+    }
+
+    static boolean respond(CalculatorCommandProcessor processor, String line, Writer writer) throws IOException {
+        boolean open = true;
+        try {
+            CommandResult result = processor.process(line);
+            for (String output : result.outputLines()) {
+                writer.write(OUTPUT_PREFIX);
+                writer.write(output);
+                writer.write('\n');
+            }
+            if (result.exitRequested()) {
+                writer.write(BYE);
+                open = false;
+            } else {
+                writer.write(OK);
+            }
+        } catch (RuntimeException ex) {
+            // Any command failure still gets its error line, so every request ends in ok/error/bye.
+            writer.write(ERROR_PREFIX);
+            writer.write(String.valueOf(ex.getMessage()));
+        }
+        writer.write('\n');
+        writer.flush();
+        return open;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Already rejected; the close failure changes nothing.
+        }
+    }
+}
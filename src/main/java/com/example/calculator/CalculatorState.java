@@ -1,22 +1,52 @@
 package com.example.calculator;
 
+import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Properties;
 import java.util.TreeMap;
 
 final class CalculatorState {
-    private final Map<String, Double> variables = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    // Rough 64-bit JVM sizes with compressed oops; good enough to rank sessions, not to account for every byte.
+    private static final long ENTRY_OVERHEAD_BYTES = 48;
+    private static final long STRING_OVERHEAD_BYTES = 40;
+    private static final long DOUBLE_BYTES = 16;
+    private static final long BIG_DECIMAL_OVERHEAD_BYTES = 72;
+    private static final String VARIABLE_PREFIX = "var.";
+    private static final String PRECISE_PREFIX = "precise.";
+
     private final Map<String, Double> constants;
 
+    private PersistentSortedMap<String, Double> variables = PersistentSortedMap.empty(String.CASE_INSENSITIVE_ORDER);
+    private PersistentSortedMap<String, BigDecimal> preciseVariables = PersistentSortedMap.empty(String.CASE_INSENSITIVE_ORDER);
     private double ans;
+    private BigDecimal preciseAns;
     private double memory;
+    // Kept up to date on every variable change so estimating a large session stays O(1).
+    private long variableBytes;
 
     CalculatorState(Map<String, Double> constants) {
-        this.constants = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-        this.constants.putAll(constants);
+        Map<String, Double> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        copy.putAll(constants);
+        this.constants = Collections.unmodifiableMap(copy);
+    }
+
+    private CalculatorState(CalculatorState source) {
+        this.constants = source.constants;
+        this.variables = source.variables;
+        this.preciseVariables = source.preciseVariables;
+        this.ans = source.ans;
+        this.preciseAns = source.preciseAns;
+        this.memory = source.memory;
+        this.variableBytes = source.variableBytes;
+    }
+
+    CalculatorState copy() {
+        return new CalculatorState(this);
     }
 
     Map<String, Double> getVariablesSnapshot() {
-        return new TreeMap<>(variables);
+        return variables;
     }
 
     Map<String, Double> getConstantsSnapshot() {
@@ -35,12 +65,50 @@ final class CalculatorState {
         return variables.containsKey(name);
     }
 
+    int variableCount() {
+        return variables.size();
+    }
+
     void putVariable(String name, double value) {
-        variables.put(name, value);
+        if (!variables.containsKey(name)) {
+            variableBytes += variableBytes(name);
+        }
+        dropPreciseVariable(name);
+        variables = variables.with(name, value);
+    }
+
+    BigDecimal getPreciseVariable(String name) {
+        return preciseVariables.get(name);
+    }
+
+    void putPreciseVariable(String name, BigDecimal value) {
+        double view = doubleView(value);
+        if (!variables.containsKey(name)) {
+            variableBytes += variableBytes(name);
+        }
+        dropPreciseVariable(name);
+        variables = variables.with(name, view);
+        preciseVariables = preciseVariables.with(name, value);
+        variableBytes += preciseBytes(name, value);
     }
 
     boolean removeVariable(String name) {
-        return variables.remove(name) != null;
+        dropPreciseVariable(name);
+        PersistentSortedMap<String, Double> updated = variables.without(name);
+        boolean removed = updated != variables;
+        if (removed) {
+            variableBytes -= variableBytes(name);
+        }
+        variables = updated;
+        return removed;
+    }
+
+    private void dropPreciseVariable(String name) {
+        BigDecimal previous = preciseVariables.get(name);
+        if (previous != null) {
+            variableBytes -= preciseBytes(name, previous);
+            preciseVariables = preciseVariables.without(name);
+        }
     }
 
     double resolveConstant(String name) {
@@ -57,6 +125,23 @@ final class CalculatorState {
 
     void setAns(double ans) {
         this.ans = ans;
+        this.preciseAns = null;
+    }
+
+    BigDecimal getPreciseAns() {
+        return preciseAns;
+    }
+
+    void setPreciseAns(BigDecimal preciseAns) {
+        this.ans = doubleView(preciseAns);
+        this.preciseAns = preciseAns;
+    }
+
+    // Double-mode counterpart of a precise value. Magnitudes beyond double range have none and
+    // are held as NaN, which double-mode reads reject; the precise value itself is kept as is.
+    private static double doubleView(BigDecimal value) {
+        double view = value.doubleValue();
+        return Double.isInfinite(view) ? Double.NaN : view;
     }
 
     double getMemory() {
@@ -67,13 +152,72 @@ final class CalculatorState {
         this.memory = memory;
     }
 
+    long estimateRetainedBytes() {
+        return preciseAns == null ? variableBytes : variableBytes + estimateBytes(preciseAns);
+    }
+
+    private static long variableBytes(String name) {
+        return ENTRY_OVERHEAD_BYTES + STRING_OVERHEAD_BYTES + 2L * name.length() + DOUBLE_BYTES;
+    }
+
+    private static long preciseBytes(String name, BigDecimal value) {
+        return ENTRY_OVERHEAD_BYTES + STRING_OVERHEAD_BYTES + 2L * name.length() + estimateBytes(value);
+    }
+
+    private static long estimateBytes(BigDecimal value) {
+        return BIG_DECIMAL_OVERHEAD_BYTES + value.unscaledValue().bitLength() / 8;
+    }
+
+    void saveTo(Properties target) {
+        for (Map.Entry<String, Double> entry : variables.entrySet()) {
+            target.setProperty(VARIABLE_PREFIX + entry.getKey(), Double.toString(entry.getValue()));
+        }
+        for (Map.Entry<String, BigDecimal> entry : preciseVariables.entrySet()) {
+            target.setProperty(PRECISE_PREFIX + entry.getKey(), entry.getValue().toString());
+        }
+        target.setProperty("ans", Double.toString(ans));
+        if (preciseAns != null) {
+            target.setProperty("ans.precise", preciseAns.toString());
+        }
+        target.setProperty("memory", Double.toString(memory));
+    }
+
+    void restoreFrom(Properties source) {
+        reset();
+        for (String key : source.stringPropertyNames()) {
+            if (key.startsWith(VARIABLE_PREFIX)) {
+                variables = variables.with(key.substring(VARIABLE_PREFIX.length()), Double.valueOf(source.getProperty(key)));
+            }
+        }
+        for (String key : source.stringPropertyNames()) {
+            if (key.startsWith(PRECISE_PREFIX)) {
+                preciseVariables = preciseVariables.with(key.substring(PRECISE_PREFIX.length()), new BigDecimal(source.getProperty(key)));
+            }
+        }
+        ans = Double.parseDouble(source.getProperty("ans", "0"));
+        String savedPreciseAns = source.getProperty("ans.precise");
+        preciseAns = savedPreciseAns == null ? null : new BigDecimal(savedPreciseAns);
+        memory = Double.parseDouble(source.getProperty("memory", "0"));
+        for (String name : variables.keySet()) {
+            variableBytes += variableBytes(name);
+        }
+        for (Map.Entry<String, BigDecimal> entry : preciseVariables.entrySet()) {
+            variableBytes += preciseBytes(entry.getKey(), entry.getValue());
+        }
+    }
+
     void clearVariables() {
-        variables.clear();
+        variables = PersistentSortedMap.empty(String.CASE_INSENSITIVE_ORDER);
+        preciseVariables = PersistentSortedMap.empty(String.CASE_INSENSITIVE_ORDER);
+        variableBytes = 0;
     }
 
     void reset() {
-        variables.clear();
+        variables = PersistentSortedMap.empty(String.CASE_INSENSITIVE_ORDER);
+        preciseVariables = PersistentSortedMap.empty(String.CASE_INSENSITIVE_ORDER);
         ans = 0d;
+        preciseAns = null;
         memory = 0d;
+        variableBytes = 0;
     }
 }
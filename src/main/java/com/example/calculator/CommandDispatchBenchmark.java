@@ -0,0 +1,142 @@
+package com.example.calculator;
+
+import java.util.Locale;
+
+// Replays a mixed script of expression, memory and meta lines through the command
+// processor. Reports per-line dispatch cost for the prefix classifier next to the former
+// split/case-conversion dispatch, and the per-line cost of the full replay.
+public final class CommandDispatchBenchmark {
+    private static final String[] SCRIPT = {
+            "x = 12",
+            "y = sqrt(x) * pi",
+            "  sum(x, y, 5); avg(1, 2, 3, 4)",
+            "MS x",
+            "M+ 2",
+            "mr",
+            "x ^= 2; x",
+            ":ans",
+            "max(x, y) - min(x, y)"
+    };
+    private static final int HISTORY_LIMIT = 1_000;
+
+    private CommandDispatchBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int lines = 10_000_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if ("--lines".equals(args[i])) {
+                lines = Integer.parseInt(args[i + 1]);
+            } else {
+                System.err.println("Unknown option: " + args[i]);
+                return;
+            }
+        }
+        System.out.println(run(lines).describe());
+    }
+
+    static Report run(int lines) {
+        // One untimed pass each so both dispatchers are compiled before measuring.
+        int warmup = Math.min(lines, 200_000);
+        long checksum = classifyAll(warmup) + legacyClassifyAll(warmup);
+
+        long started = System.nanoTime();
+        checksum += legacyClassifyAll(lines);
+        long legacyNanos = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        checksum += classifyAll(lines);
+        long classifierNanos = System.nanoTime() - started;
+
+        CalculatorCommandProcessor processor = new CalculatorCommandProcessor(new CalculatorEngine(), HISTORY_LIMIT);
+        started = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            checksum += processor.process(SCRIPT[i % SCRIPT.length]).outputLines().size();
+        }
+        long replayNanos = System.nanoTime() - started;
+        return new Report(lines, legacyNanos, classifierNanos, replayNanos, checksum);
+    }
+
+    private static long classifyAll(int lines) {
+        long checksum = 0;
+        for (int i = 0; i < lines; i++) {
+            checksum += CalculatorCommandProcessor.classify(SCRIPT[i % SCRIPT.length].trim()).ordinal();
+        }
+        return checksum;
+    }
+
+    private static long legacyClassifyAll(int lines) {
+        long checksum = 0;
+        for (int i = 0; i < lines; i++) {
+            checksum += legacyClassify(SCRIPT[i % SCRIPT.length]).ordinal();
+        }
+        return checksum;
+    }
+
+    // The routing process() did before the prefix classifier, kept here as the baseline.
+    static CalculatorCommandProcessor.LineKind legacyClassify(String line) {
+        if (line == null || line.trim().isEmpty()) {
+            return CalculatorCommandProcessor.LineKind.EMPTY;
+        }
+        String normalized = line.trim();
+        String lower = normalized.toLowerCase(Locale.ROOT);
+        if ("exit".equals(lower) || "quit".equals(lower) || ":exit".equals(lower) || ":quit".equals(lower)) {
+            return CalculatorCommandProcessor.LineKind.EXIT;
+        }
+        if (normalized.startsWith("!")) {
+            return CalculatorCommandProcessor.LineKind.HISTORY_RECALL;
+        }
+        if (normalized.startsWith(":")) {
+            return CalculatorCommandProcessor.LineKind.META;
+        }
+        String command = normalized.split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        switch (command) {
+            case "MR":
+            case "MC":
+            case "MS":
+            case "M+":
+            case "M-":
+                return CalculatorCommandProcessor.LineKind.MEMORY;
+            default:
+                return CalculatorCommandProcessor.LineKind.EXPRESSION;
+        }
+    }
+
+    static final class Report {
+        private final int lines;
+        private final long legacyNanos;
+        private final long classifierNanos;
+        private final long replayNanos;
+        private final long checksum;
+
+        Report(int lines, long legacyNanos, long classifierNanos, long replayNanos, long checksum) {
+            this.lines = lines;
+            this.legacyNanos = legacyNanos;
+            this.classifierNanos = classifierNanos;
+            this.replayNanos = replayNanos;
+            this.checksum = checksum;
+        }
+
+        int lines() {
+            return lines;
+        }
+
+        double legacyNanosPerLine() {
+            return (double) legacyNanos / lines;
+        }
+
+        double classifierNanosPerLine() {
+            return (double) classifierNanos / lines;
+        }
+
+        double replayNanosPerLine() {
+            return (double) replayNanos / lines;
+        }
+
+        String describe() {
+            return String.format(Locale.ROOT,
+                    "lines=%d dispatch legacy=%.1fns/line classifier=%.1fns/line replay=%.1fns/line checksum=%d",
+                    lines, legacyNanosPerLine(), classifierNanosPerLine(), replayNanosPerLine(), checksum);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.calculator;
+
+import java.util.Map;
+
+public final class EngineSnapshot {
+    private final long version;
+    private final double ans;
+    private final double memory;
+    private final Map<String, Double> variables;
+
+    EngineSnapshot(long version, double ans, double memory, Map<String, Double> variables) {
+        this.version = version;
+        this.ans = ans;
+        this.memory = memory;
+        this.variables = variables;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public double getAns() {
+        return ans;
+    }
+
+    public double getMemory() {
+        return memory;
+    }
+
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+}
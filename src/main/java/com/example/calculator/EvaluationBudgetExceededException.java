@@ -0,0 +1,9 @@
+package com.example.calculator;
+
+public class EvaluationBudgetExceededException extends CalculatorException {
+    private static final long serialVersionUID = 1L;
+
+    public EvaluationBudgetExceededException(String message) {
+        super(CalculatorErrorCode.BUDGET_EXCEEDED, message);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.calculator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Shares work between identical concurrent evaluations. Only pure inputs qualify: no
+// assignments, variables, ans/memory or random functions, just literals, constants and
+// context-free builtins. Their results cannot depend on which engine runs them. The first
+// caller evaluates, callers arriving meanwhile wait for its result, and successful results
+// stay cached for a short TTL. Everything else goes straight to the caller's engine.
+final class EvaluationCoalescer {
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    private final Map<String, FunctionDefinition> functions = BuiltinFunctionCatalog.shared();
+    private final Map<String, CompletableFuture<double[]>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResult> cache = new ConcurrentHashMap<>();
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    EvaluationCoalescer(long ttlMillis, int maxEntries, LongSupplier nanoClock) {
+        if (ttlMillis < 0 || maxEntries < 0) {
+            throw new CalculatorException("Cache TTL and size must not be negative.");
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+    }
+
+    EvaluationCoalescer(long ttlMillis, int maxEntries) {
+        this(ttlMillis, maxEntries, System::nanoTime);
+    }
+
+    // Cached arrays are handed to every caller that hits them, so callers must not modify them.
+    double[] evaluateAllToArray(CalculatorEngine engine, String input) {
+        String key = engine.isPrecisionEnabled() ? null : pureKey(input);
+        if (key == null) {
+            return engine.evaluateAllToArray(input);
+        }
+
+        CachedResult cached = cache.get(key);
+        if (cached != null) {
+            if (nanoClock.getAsLong() - cached.expiresAtNanos < 0) {
+                cacheHits.incrementAndGet();
+                return reuse(engine, cached.values);
+            }
+            cache.remove(key, cached);
+        }
+
+        CompletableFuture<double[]> mine = new CompletableFuture<>();
+        CompletableFuture<double[]> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            return reuse(engine, await(leader));
+        }
+        try {
+            evaluations.incrementAndGet();
+            double[] values = engine.evaluateAllToArray(input);
+            remember(key, values);
+            mine.complete(values);
+            return values;
+        } catch (RuntimeException | Error ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    long evaluationCount() {
+        return evaluations.get();
+    }
+
+    long coalescedCount() {
+        return coalesced.get();
+    }
+
+    long cacheHitCount() {
+        return cacheHits.get();
+    }
+
+    int cacheSize() {
+        return cache.size();
+    }
+
+    // Canonical token text of the input, or null when it is not pure: assignments, anything
+    // stateful, or anything the tokenizer rejects, which the engine then reports.
+    String pureKey(String input) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(input.length());
+        List<ExpressionParser.Token> tokens;
+        try {
+            tokens = ExpressionParser.tokenize(input);
+        } catch (CalculatorException ex) {
+            return null;
+        }
+        boolean empty = true;
+        for (int i = 0; i < tokens.size() - 1; i++) {
+            ExpressionParser.Token token = tokens.get(i);
+            if (ExpressionParser.isAssignment(token.type)) {
+                return null;
+            }
+            if (token.type == ExpressionParser.TokenType.IDENTIFIER) {
+                boolean call = tokens.get(i + 1).type == ExpressionParser.TokenType.LPAREN;
+                if (call ? !isPureFunction(token.text) : !CalculatorEngine.isDefaultConstant(token.text)) {
+                    return null;
+                }
+            }
+            empty &= token.type == ExpressionParser.TokenType.SEMICOLON;
+            key.append(token.text).append(' ');
+        }
+        return empty ? null : key.toString();
+    }
+
+    private boolean isPureFunction(String name) {
+        FunctionDefinition definition = functions.get(name);
+        return definition != null && definition.isPure();
+    }
+
+    private void remember(String key, double[] values) {
+        if (ttlNanos == 0 || maxEntries == 0) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        if (cache.size() >= maxEntries) {
+            cache.values().removeIf(entry -> now - entry.expiresAtNanos >= 0);
+            if (cache.size() >= maxEntries) {
+                return;
+            }
+        }
+        cache.put(key, new CachedResult(values, now + ttlNanos));
+    }
+
+    private static double[] reuse(CalculatorEngine engine, double[] values) {
+        engine.recordAns(values[values.length - 1]);
+        return values;
+    }
+
+    // Followers see the leader's own exception, keeping its error code, position and subtype.
+    private static double[] await(CompletableFuture<double[]> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static final class CachedResult {
+        private final double[] values;
+        private final long expiresAtNanos;
+
+        private CachedResult(double[] values, long expiresAtNanos) {
+            this.values = values;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
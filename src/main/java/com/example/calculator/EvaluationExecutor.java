@@ -0,0 +1,191 @@
+package com.example.calculator;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Admission control in front of evaluation: at most `concurrency` tasks run, at most
+// `queueCapacity` wait, and a task still waiting when its queue deadline passes is dropped.
+// Overload is reported as an Outcome instead of an exception or an ever-growing queue.
+final class EvaluationExecutor implements Closeable {
+    enum Status {
+        COMPLETED,
+        FAILED,
+        REJECTED,
+        EXPIRED
+    }
+
+    static final class Outcome<T> {
+        private final Status status;
+        private final T value;
+        private final String error;
+        private final Throwable failure;
+
+        private Outcome(Status status, T value, String error, Throwable failure) {
+            this.status = status;
+            this.value = value;
+            this.error = error;
+            this.failure = failure;
+        }
+
+        Status status() {
+            return status;
+        }
+
+        T value() {
+            return value;
+        }
+
+        String error() {
+            return error;
+        }
+
+        Throwable failure() {
+            return failure;
+        }
+    }
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledThreadPoolExecutor deadlines;
+    private final long queueDeadlineNanos;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    EvaluationExecutor(int concurrency, int queueCapacity, long queueDeadlineMillis) {
+        if (concurrency < 1 || queueCapacity < 1 || queueDeadlineMillis < 1) {
+            throw new CalculatorException("Concurrency, queue capacity and deadline must be positive.");
+        }
+        this.queueDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(queueDeadlineMillis);
+        this.workers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("calculator-eval"));
+        this.deadlines = new ScheduledThreadPoolExecutor(1, daemonThreads("calculator-eval-deadline"));
+        this.deadlines.setRemoveOnCancelPolicy(true);
+    }
+
+    <T> CompletableFuture<Outcome<T>> submit(Supplier<T> evaluation) {
+        submitted.incrementAndGet();
+        Task<T> task = new Task<>(evaluation);
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException ex) {
+            rejected.incrementAndGet();
+            task.result.complete(new Outcome<>(Status.REJECTED, null, "Server busy: evaluation queue is full.", null));
+            return task.result;
+        }
+        try {
+            task.expiry = deadlines.schedule(task::expire, queueDeadlineNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ex) {
+            // Closed concurrently; close() has already settled the task if it was still queued.
+        }
+        return task.result;
+    }
+
+    long submittedCount() {
+        return submitted.get();
+    }
+
+    long completedCount() {
+        return completed.get();
+    }
+
+    long failedCount() {
+        return failed.get();
+    }
+
+    long rejectedCount() {
+        return rejected.get();
+    }
+
+    long expiredCount() {
+        return expired.get();
+    }
+
+    int queuedCount() {
+        return workers.getQueue().size();
+    }
+
+    int activeCount() {
+        return workers.getActiveCount();
+    }
+
+    // Tasks still queued are answered as rejected so no caller waits on a future nobody will complete.
+    @Override
+    public void close() {
+        for (Runnable queued : workers.shutdownNow()) {
+            ((Task<?>) queued).reject();
+        }
+        deadlines.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName(name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Whoever claims the task first decides its fate: a worker runs it, the deadline expires it.
+    private final class Task<T> implements Runnable {
+        private final Supplier<T> evaluation;
+        private final CompletableFuture<Outcome<T>> result = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile ScheduledFuture<?> expiry;
+
+        private Task(Supplier<T> evaluation) {
+            this.evaluation = evaluation;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            ScheduledFuture<?> pending = expiry;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            try {
+                T value = evaluation.get();
+                completed.incrementAndGet();
+                result.complete(new Outcome<>(Status.COMPLETED, value, null, null));
+            } catch (Throwable ex) {
+                // Errors included: a future left incomplete would block its caller forever.
+                failed.incrementAndGet();
+                result.complete(new Outcome<>(Status.FAILED, null, String.valueOf(ex.getMessage()), ex));
+            }
+        }
+
+        private void reject() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            rejected.incrementAndGet();
+            result.complete(new Outcome<>(Status.REJECTED, null, "Server shutting down: evaluation was not started.", null));
+        }
+
+        private void expire() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            workers.remove(this);
+            expired.incrementAndGet();
+            result.complete(new Outcome<>(Status.EXPIRED, null, "Server busy: evaluation waited past its queue deadline.", null));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.calculator;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+// Cooperative limits for one evaluation: cancellation, a wall-clock deadline and a step budget.
+// A guard is installed on the evaluating thread for the duration of the evaluation. The
+// evaluator and long loops charge steps as they go. Charges are coarse: one per parsed operand
+// or function argument, one per loop iteration charged up front where the count is known, or
+// per block of iterations otherwise. The clock is read only when the running total crosses a
+// CLOCK_INTERVAL boundary. Without a guard, checkpoint() is a single thread-local read.
+final class EvaluationGuard {
+    static final long UNLIMITED = 0L;
+    private static final long CLOCK_INTERVAL = 1 << 10;
+    private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+    private static final ThreadLocal<EvaluationGuard> CURRENT = new ThreadLocal<>();
+
+    private final BooleanSupplier cancelled;
+    private final long deadlineNanos;
+    private final long timeoutMillis;
+    private final long maxSteps;
+    // Parallel reductions charge from pool workers, so the count is shared.
+    private final AtomicLong steps = new AtomicLong();
+
+    EvaluationGuard(BooleanSupplier cancelled) {
+        this(cancelled, UNLIMITED, UNLIMITED);
+    }
+
+    EvaluationGuard(BooleanSupplier cancelled, long timeoutMillis, long maxSteps) {
+        this.cancelled = cancelled == null ? NEVER_CANCELLED : cancelled;
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanos = timeoutMillis == UNLIMITED ? 0L : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.maxSteps = maxSteps;
+    }
+
+    // A budgeted guard nested inside another keeps honouring the outer cancellation.
+    static EvaluationGuard withBudget(long timeoutMillis, long maxSteps) {
+        EvaluationGuard outer = CURRENT.get();
+        return new EvaluationGuard(outer == null ? null : outer.cancelled, timeoutMillis, maxSteps);
+    }
+
+    static EvaluationGuard current() {
+        return CURRENT.get();
+    }
+
+    static void checkpoint() {
+        checkpoint(0L);
+    }
+
+    static void checkpoint(long steps) {
+        EvaluationGuard guard = CURRENT.get();
+        if (guard != null) {
+            guard.charge(steps);
+        }
+    }
+
+    void check() {
+        charge(0L);
+    }
+
+    void charge(long amount) {
+        long total = amount == 0L ? steps.get() : steps.addAndGet(amount);
+        if (maxSteps != UNLIMITED && total > maxSteps) {
+            throw new EvaluationBudgetExceededException("Evaluation exceeded its budget of " + maxSteps + " steps.");
+        }
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Evaluation cancelled.");
+        }
+        boolean clockDue = amount == 0L || (total - amount) / CLOCK_INTERVAL != total / CLOCK_INTERVAL;
+        if (timeoutMillis != UNLIMITED && clockDue && System.nanoTime() - deadlineNanos >= 0) {
+            throw new EvaluationBudgetExceededException("Evaluation exceeded its time budget of " + timeoutMillis + " ms.");
+        }
+    }
+
+    long stepsUsed() {
+        return steps.get();
+    }
+
+    <T> T run(Supplier<T> body) {
+        EvaluationGuard previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return body.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.calculator;
+
+import java.util.Arrays;
+
+// Per-statement outcomes of CalculatorEngine.tryEvaluateAll. Values are kept unboxed, and the
+// arrays and statement spans are reused across calls, so the result itself stops allocating once
+// it has grown to fit. Tokenizing each input still allocates, as do the stack traces of errors
+// raised outside the parser, such as builtin domain errors. Failed statements hold NaN as their
+// value.
+public final class EvaluationResult {
+    // Scratch for the engine's statement split; kept here so reusing a result reuses it too.
+    final StatementSpans spans = new StatementSpans();
+    private double[] values = new double[8];
+    private CalculatorErrorCode[] errorCodes = new CalculatorErrorCode[8];
+    private int[] errorPositions = new int[8];
+    private CalculatorException[] errors = new CalculatorException[8];
+    private int size;
+    private int failureCount;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isSuccess() {
+        return failureCount == 0;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    public double getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public boolean isFailed(int index) {
+        checkIndex(index);
+        return errorCodes[index] != null;
+    }
+
+    // Null when the statement succeeded.
+    public CalculatorErrorCode getErrorCode(int index) {
+        checkIndex(index);
+        return errorCodes[index];
+    }
+
+    // Offset in the input line, or -1 when the statement succeeded or the error has none.
+    public int getErrorPosition(int index) {
+        checkIndex(index);
+        return errorPositions[index];
+    }
+
+    public String getErrorMessage(int index) {
+        checkIndex(index);
+        return errors[index] == null ? null : errors[index].getMessage();
+    }
+
+    public double[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    void clear() {
+        Arrays.fill(errors, 0, size, null);
+        size = 0;
+        failureCount = 0;
+    }
+
+    void addValue(double value) {
+        int index = grow();
+        values[index] = value;
+        errorCodes[index] = null;
+        errorPositions[index] = -1;
+    }
+
+    void addFailure(CalculatorException error) {
+        int index = grow();
+        values[index] = Double.NaN;
+        errorCodes[index] = error.getErrorCode();
+        errorPositions[index] = error.getPosition();
+        errors[index] = error;
+        failureCount++;
+    }
+
+    private int grow() {
+        if (size == values.length) {
+            int capacity = size * 2;
+            values = Arrays.copyOf(values, capacity);
+            errorCodes = Arrays.copyOf(errorCodes, capacity);
+            errorPositions = Arrays.copyOf(errorPositions, capacity);
+            errors = Arrays.copyOf(errors, capacity);
+        }
+        return size++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+}
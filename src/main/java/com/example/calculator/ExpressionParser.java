@@ -1,6 +1,7 @@
 package com.example.calculator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 final class ExpressionParser {
@@ -19,215 +20,143 @@ final class ExpressionParser {
     private final SymbolResolver symbolResolver;
     private final FunctionResolver functionResolver;
     private final List<Token> tokens;
-    private int current;
+    private final int start;
+    private final int end;
+    private final int maxDepth;
 
     ExpressionParser(String input, SymbolResolver symbolResolver, FunctionResolver functionResolver) {
-        this.symbolResolver = symbolResolver;
-        this.functionResolver = functionResolver;
-        this.tokens = tokenize(input);
-        this.current = 0;
+        this(input, symbolResolver, functionResolver, OperatorPrecedenceParser.DEFAULT_MAX_DEPTH);
     }
 
-    double parse() {
-        double result = parseExpression();
-        consume(TokenType.EOF, "Unexpected trailing input.");
-        return result;
+    ExpressionParser(String input, SymbolResolver symbolResolver, FunctionResolver functionResolver, int maxDepth) {
+        this(tokenize(input), 0, -1, symbolResolver, functionResolver, maxDepth);
     }
 
-    private double parseExpression() {
-        return parseOr();
+    // Parses tokens[start, end) of an already tokenized line; end < 0 means up to EOF.
+    ExpressionParser(List<Token> tokens, int start, int end, SymbolResolver symbolResolver,
+                     FunctionResolver functionResolver, int maxDepth) {
+        this.symbolResolver = symbolResolver;
+        this.functionResolver = functionResolver;
+        this.tokens = tokens;
+        this.start = start;
+        this.end = end < 0 ? tokens.size() - 1 : end;
+        this.maxDepth = maxDepth;
     }
 
-    private double parseOr() {
-        double value = parseAnd();
-        while (match(TokenType.OR_OR)) {
-            double rhs = parseAnd();
-            value = (CalculatorMath.toBoolean(value) || CalculatorMath.toBoolean(rhs)) ? 1d : 0d;
-        }
-        return value;
+    double parse() {
+        Evaluator evaluator = new Evaluator();
+        OperatorPrecedenceParser.parse(tokens, start, end, evaluator, maxDepth);
+        return evaluator.values[0];
     }
 
-    private double parseAnd() {
-        double value = parseEquality();
-        while (match(TokenType.AND_AND)) {
-            double rhs = parseEquality();
-            value = (CalculatorMath.toBoolean(value) && CalculatorMath.toBoolean(rhs)) ? 1d : 0d;
-        }
-        return value;
+    private static boolean almostEqual(double a, double b) {
+        return Math.abs(a - b) <= EQ_EPS;
     }
 
-    private double parseEquality() {
-        double value = parseComparison();
-        while (true) {
-            if (match(TokenType.EQUAL_EQUAL)) {
-                double rhs = parseComparison();
-                value = almostEqual(value, rhs) ? 1d : 0d;
-            } else if (match(TokenType.BANG_EQUAL)) {
-                double rhs = parseComparison();
-                value = almostEqual(value, rhs) ? 0d : 1d;
-            } else {
-                break;
-            }
-        }
-        return value;
-    }
+    // Operand stack for the shared precedence parser; doubles stay unboxed until a function call.
+    private final class Evaluator implements OperatorPrecedenceParser.Handler {
+        private double[] values = new double[16];
+        private int size;
 
-    private double parseComparison() {
-        double value = parseAddSub();
-        while (true) {
-            if (match(TokenType.GREATER)) {
-                value = value > parseAddSub() ? 1d : 0d;
-            } else if (match(TokenType.GREATER_EQUAL)) {
-                value = value >= parseAddSub() ? 1d : 0d;
-            } else if (match(TokenType.LESS)) {
-                value = value < parseAddSub() ? 1d : 0d;
-            } else if (match(TokenType.LESS_EQUAL)) {
-                value = value <= parseAddSub() ? 1d : 0d;
-            } else {
-                break;
-            }
+        @Override
+        public void number(Token token) {
+            push(token.number);
         }
-        return value;
-    }
 
-    private boolean almostEqual(double a, double b) {
-        return Math.abs(a - b) <= EQ_EPS;
-    }
-
-    private double parseAddSub() {
-        double value = parseMulDiv();
-        while (true) {
-            if (match(TokenType.PLUS)) {
-                value += parseMulDiv();
-            } else if (match(TokenType.MINUS)) {
-                value -= parseMulDiv();
-            } else {
-                break;
-            }
+        @Override
+        public void symbol(Token token) {
+            push(symbolResolver.resolve(token.text));
         }
-        return value;
-    }
 
-    private double parseMulDiv() {
-        double value = parseUnary();
-        while (true) {
-            if (match(TokenType.STAR)) {
-                value *= parseUnary();
-            } else if (match(TokenType.SLASH)) {
-                double divisor = parseUnary();
-                if (divisor == 0d) {
-                    throw error(peek(), "Division by zero.");
-                }
-                value /= divisor;
-            } else if (match(TokenType.PERCENT)) {
-                double divisor = parseUnary();
-                if (divisor == 0d) {
-                    throw error(peek(), "Modulo by zero.");
-                }
-                value %= divisor;
-            } else {
-                break;
+        @Override
+        public void call(Token name, int argCount) {
+            List<Double> args = new ArrayList<>(argCount);
+            for (int i = size - argCount; i < size; i++) {
+                args.add(values[i]);
             }
+            size -= argCount;
+            push(functionResolver.invoke(name.text, args));
         }
-        return value;
-    }
 
-    private double parsePower() {
-        double value = parsePostfix();
-        if (match(TokenType.CARET)) {
-            double exponent = parseUnary();
-            value = Math.pow(value, exponent);
+        @Override
+        public void negate(Token operator) {
+            values[size - 1] = -values[size - 1];
         }
-        return value;
-    }
 
-    private double parseUnary() {
-        if (match(TokenType.PLUS)) {
-            return parseUnary();
-        }
-        if (match(TokenType.MINUS)) {
-            return -parseUnary();
+        @Override
+        public void factorial(Token operator) {
+            values[size - 1] = CalculatorMath.factorial(values[size - 1]);
         }
-        return parsePower();
-    }
-
-    private double parsePostfix() {
-        double value = parsePrimary();
-        while (match(TokenType.BANG)) {
-            value = CalculatorMath.factorial(value);
-        }
-        return value;
-    }
 
-    private double parsePrimary() {
-        if (match(TokenType.NUMBER)) {
-            return previous().number;
-        }
-        if (match(TokenType.IDENTIFIER)) {
-            String symbol = previous().text;
-            if (match(TokenType.LPAREN)) {
-                List<Double> args = new ArrayList<>();
-                if (!check(TokenType.RPAREN)) {
-                    do {
-                        args.add(parseExpression());
-                    } while (match(TokenType.COMMA));
-                }
-                consume(TokenType.RPAREN, "Missing ')' after function arguments.");
-                return functionResolver.invoke(symbol, args);
+        @Override
+        public void binary(Token operator) {
+            double rhs = values[--size];
+            double lhs = values[size - 1];
+            double value;
+            switch (operator.type) {
+                case OR_OR:
+                    value = (CalculatorMath.toBoolean(lhs) || CalculatorMath.toBoolean(rhs)) ? 1d : 0d;
+                    break;
+                case AND_AND:
+                    value = (CalculatorMath.toBoolean(lhs) && CalculatorMath.toBoolean(rhs)) ? 1d : 0d;
+                    break;
+                case EQUAL_EQUAL:
+                    value = almostEqual(lhs, rhs) ? 1d : 0d;
+                    break;
+                case BANG_EQUAL:
+                    value = almostEqual(lhs, rhs) ? 0d : 1d;
+                    break;
+                case GREATER:
+                    value = lhs > rhs ? 1d : 0d;
+                    break;
+                case GREATER_EQUAL:
+                    value = lhs >= rhs ? 1d : 0d;
+                    break;
+                case LESS:
+                    value = lhs < rhs ? 1d : 0d;
+                    break;
+                case LESS_EQUAL:
+                    value = lhs <= rhs ? 1d : 0d;
+                    break;
+                case PLUS:
+                    value = lhs + rhs;
+                    break;
+                case MINUS:
+                    value = lhs - rhs;
+                    break;
+                case STAR:
+                    value = lhs * rhs;
+                    break;
+                case SLASH:
+                    if (rhs == 0d) {
+                        throw new CalculatorException(CalculatorErrorCode.DIVISION_BY_ZERO, null, operator.position);
+                    }
+                    value = lhs / rhs;
+                    break;
+                case PERCENT:
+                    if (rhs == 0d) {
+                        throw new CalculatorException(CalculatorErrorCode.MODULO_BY_ZERO, null, operator.position);
+                    }
+                    value = lhs % rhs;
+                    break;
+                case CARET:
+                    value = Math.pow(lhs, rhs);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected operator " + operator.type);
             }
-            return symbolResolver.resolve(symbol);
+            values[size - 1] = value;
         }
-        if (match(TokenType.LPAREN)) {
-            double value = parseExpression();
-            consume(TokenType.RPAREN, "Missing ')' to close expression.");
-            return value;
-        }
-        throw error(peek(), "Expected a number, variable, function call, or parenthesized expression.");
-    }
-
-    private boolean match(TokenType type) {
-        if (!check(type)) {
-            return false;
-        }
-        advance();
-        return true;
-    }
 
-    private Token consume(TokenType type, String message) {
-        if (check(type)) {
-            return advance();
-        }
-        throw error(peek(), message);
-    }
-
-    private boolean check(TokenType type) {
-        return peek().type == type;
-    }
-
-    private Token advance() {
-        if (!isAtEnd()) {
-            current++;
+        private void push(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
         }
-        return previous();
-    }
-
-    private boolean isAtEnd() {
-        return peek().type == TokenType.EOF;
-    }
-
-    private Token peek() {
-        return tokens.get(current);
-    }
-
-    private Token previous() {
-        return tokens.get(current - 1);
-    }
-
-    private CalculatorException error(Token token, String message) {
-        return new CalculatorException(message + " (near position " + token.position + ")");
     }
 
-    private static List<Token> tokenize(String input) {
+    static List<Token> tokenize(String input) {
         List<Token> tokenList = new ArrayList<>();
         int i = 0;
         while (i < input.length()) {
@@ -267,19 +196,19 @@ final class ExpressionParser {
                         i++;
                     }
                     if (digitsStart == i) {
-                        throw new CalculatorException("Invalid exponent near position " + exponentStart);
+                        throw new CalculatorException(CalculatorErrorCode.SYNTAX, "Invalid exponent.", exponentStart);
                     }
                     hasDigit = true;
                 }
 
                 if (!hasDigit) {
-                    throw new CalculatorException("Invalid number near position " + start);
+                    throw new CalculatorException(CalculatorErrorCode.SYNTAX, "Invalid number.", start);
                 }
                 String numberText = input.substring(start, i);
                 try {
                     tokenList.add(new Token(TokenType.NUMBER, numberText, Double.parseDouble(numberText), start));
                 } catch (NumberFormatException ex) {
-                    throw new CalculatorException("Invalid number: " + numberText, ex);
+                    throw new CalculatorException(CalculatorErrorCode.SYNTAX, "Invalid number: " + numberText, start);
                 }
                 continue;
             }
@@ -300,25 +229,19 @@ final class ExpressionParser {
             }
 
             if (i + 1 < input.length()) {
-                String two = input.substring(i, i + 2);
+                char next = input.charAt(i + 1);
                 TokenType twoChar;
-                if ("==".equals(two)) {
-                    twoChar = TokenType.EQUAL_EQUAL;
-                } else if ("!=".equals(two)) {
-                    twoChar = TokenType.BANG_EQUAL;
-                } else if ("<=".equals(two)) {
-                    twoChar = TokenType.LESS_EQUAL;
-                } else if (">=".equals(two)) {
-                    twoChar = TokenType.GREATER_EQUAL;
-                } else if ("&&".equals(two)) {
+                if (next == '=') {
+                    twoChar = comparisonOrCompoundAssignment(c);
+                } else if (c == '&' && next == '&') {
                     twoChar = TokenType.AND_AND;
-                } else if ("||".equals(two)) {
+                } else if (c == '|' && next == '|') {
                     twoChar = TokenType.OR_OR;
                 } else {
                     twoChar = null;
                 }
                 if (twoChar != null) {
-                    tokenList.add(new Token(twoChar, two, 0d, i));
+                    tokenList.add(new Token(twoChar, input.substring(i, i + 2), 0d, i));
                     i += 2;
                     continue;
                 }
@@ -362,12 +285,18 @@ final class ExpressionParser {
                 case '>':
                     type = TokenType.GREATER;
                     break;
+                case '=':
+                    type = TokenType.ASSIGN;
+                    break;
+                case ';':
+                    type = TokenType.SEMICOLON;
+                    break;
                 default:
                     type = null;
                     break;
             }
             if (type == null) {
-                throw new CalculatorException("Unexpected character '" + c + "' at position " + i);
+                throw new CalculatorException(CalculatorErrorCode.SYNTAX, "Unexpected character '" + c + "'.", i);
             }
             tokenList.add(new Token(type, String.valueOf(c), 0d, i));
             i++;
@@ -377,7 +306,50 @@ final class ExpressionParser {
         return tokenList;
     }
 
-    private enum TokenType {
+    // Token for operator followed by '='.
+    private static TokenType comparisonOrCompoundAssignment(char operator) {
+        switch (operator) {
+            case '=':
+                return TokenType.EQUAL_EQUAL;
+            case '!':
+                return TokenType.BANG_EQUAL;
+            case '<':
+                return TokenType.LESS_EQUAL;
+            case '>':
+                return TokenType.GREATER_EQUAL;
+            case '+':
+                return TokenType.PLUS_ASSIGN;
+            case '-':
+                return TokenType.MINUS_ASSIGN;
+            case '*':
+                return TokenType.STAR_ASSIGN;
+            case '/':
+                return TokenType.SLASH_ASSIGN;
+            case '%':
+                return TokenType.PERCENT_ASSIGN;
+            case '^':
+                return TokenType.CARET_ASSIGN;
+            default:
+                return null;
+        }
+    }
+
+    static boolean isAssignment(TokenType type) {
+        switch (type) {
+            case ASSIGN:
+            case PLUS_ASSIGN:
+            case MINUS_ASSIGN:
+            case STAR_ASSIGN:
+            case SLASH_ASSIGN:
+            case PERCENT_ASSIGN:
+            case CARET_ASSIGN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    enum TokenType {
         NUMBER,
         IDENTIFIER,
         PLUS,
@@ -398,14 +370,22 @@ final class ExpressionParser {
         BANG_EQUAL,
         AND_AND,
         OR_OR,
+        ASSIGN,
+        PLUS_ASSIGN,
+        MINUS_ASSIGN,
+        STAR_ASSIGN,
+        SLASH_ASSIGN,
+        PERCENT_ASSIGN,
+        CARET_ASSIGN,
+        SEMICOLON,
         EOF
     }
 
-    private static final class Token {
-        private final TokenType type;
-        private final String text;
-        private final double number;
-        private final int position;
+    static final class Token {
+        final TokenType type;
+        final String text;
+        final double number;
+        final int position;
 
         private Token(TokenType type, String text, double number, int position) {
             this.type = type;
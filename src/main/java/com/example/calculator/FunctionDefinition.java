@@ -1,13 +1,15 @@
 package com.example.calculator;
 
 import java.util.List;
+import java.util.Random;
 
 final class FunctionDefinition {
     private final String name;
     private final int minArgs;
     private final int maxArgs;
     private final String description;
-    private final FunctionImplementation implementation;
+    private final ContextualImplementation implementation;
+    private final boolean pure;
 
     FunctionDefinition(
             String name,
@@ -15,12 +17,35 @@ final class FunctionDefinition {
             int maxArgs,
             String description,
             FunctionImplementation implementation
+    ) {
+        this(name, minArgs, maxArgs, description, (context, args) -> implementation.apply(args), true);
+    }
+
+    FunctionDefinition(
+            String name,
+            int minArgs,
+            int maxArgs,
+            String description,
+            ContextualImplementation implementation
+    ) {
+        this(name, minArgs, maxArgs, description, implementation, false);
+    }
+
+    // Context-free implementations depend only on their arguments, so equal calls give equal results.
+    private FunctionDefinition(
+            String name,
+            int minArgs,
+            int maxArgs,
+            String description,
+            ContextualImplementation implementation,
+            boolean pure
     ) {
         this.name = name;
         this.minArgs = minArgs;
         this.maxArgs = maxArgs;
         this.description = description;
         this.implementation = implementation;
+        this.pure = pure;
     }
 
     String name() {
@@ -39,12 +64,27 @@ final class FunctionDefinition {
         return description;
     }
 
-    FunctionImplementation implementation() {
-        return implementation;
+    boolean isPure() {
+        return pure;
+    }
+
+    double invoke(FunctionContext context, List<Double> args) {
+        return implementation.apply(context, args);
     }
 
     @FunctionalInterface
     interface FunctionImplementation {
         double apply(List<Double> args);
     }
+
+    @FunctionalInterface
+    interface ContextualImplementation {
+        double apply(FunctionContext context, List<Double> args);
+    }
+
+    // Per-engine state a shared definition may need at call time.
+    @FunctionalInterface
+    interface FunctionContext {
+        Random random();
+    }
 }
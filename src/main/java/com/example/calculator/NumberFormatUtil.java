@@ -3,6 +3,10 @@ package com.example.calculator;
 import java.math.BigDecimal;
 
 final class NumberFormatUtil {
+    private static final int MIN_PLAIN_EXPONENT = -10;
+    private static final int MAX_PLAIN_EXPONENT = 64;
+    private static final double TWO_POW_53 = 9007199254740992d;
+
     private NumberFormatUtil() {
     }
 
@@ -10,7 +14,97 @@ final class NumberFormatUtil {
         if (Double.isNaN(value) || Double.isInfinite(value)) {
             return String.valueOf(value);
         }
-        String text = BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
-        return "-0".equals(text) ? "0" : text;
+        return append(new StringBuilder(24), value).toString();
+    }
+
+    // Appends exactly what format(value) returns: the plain form of BigDecimal.valueOf(value)
+    // with trailing zeros stripped, and -0 printed as 0. Integral values below 2^53 print as
+    // longs. Everything else takes its shortest digits from Double.toString, as
+    // BigDecimal.valueOf does, and places the decimal point directly instead of building and
+    // stripping a BigDecimal.
+    static StringBuilder append(StringBuilder out, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return out.append(value);
+        }
+        if (value == 0d) {
+            return out.append('0');
+        }
+        if (Math.abs(value) < TWO_POW_53 && value == (long) value) {
+            return out.append((long) value);
+        }
+        if (value < 0) {
+            out.append('-');
+        }
+        return appendPlain(out, Double.toString(Math.abs(value)));
+    }
+
+    // text is Double.toString output for a positive finite value: d.ddd or d.dddE[-]n.
+    private static StringBuilder appendPlain(StringBuilder out, String text) {
+        int mantissaEnd = text.indexOf('E');
+        int exponent = 0;
+        if (mantissaEnd < 0) {
+            mantissaEnd = text.length();
+        } else {
+            boolean negative = text.charAt(mantissaEnd + 1) == '-';
+            for (int i = mantissaEnd + (negative ? 2 : 1); i < text.length(); i++) {
+                exponent = exponent * 10 + (text.charAt(i) - '0');
+            }
+            if (negative) {
+                exponent = -exponent;
+            }
+        }
+        int dot = text.indexOf('.');
+        // Digit k of the mantissa, ignoring the dot, sits at text index k or k + 1.
+        int digitCount = mantissaEnd - 1;
+        int first = 0;
+        while (digitAt(text, dot, first) == '0') {
+            first++;
+        }
+        int last = digitCount - 1;
+        while (digitAt(text, dot, last) == '0') {
+            last--;
+        }
+        int point = dot + exponent - first;
+        int length = last - first + 1;
+
+        if (point <= 0) {
+            out.append("0.");
+            for (int i = point; i < 0; i++) {
+                out.append('0');
+            }
+            appendDigits(out, text, dot, first, last + 1);
+        } else if (point >= length) {
+            appendDigits(out, text, dot, first, last + 1);
+            for (int i = length; i < point; i++) {
+                out.append('0');
+            }
+        } else {
+            appendDigits(out, text, dot, first, first + point);
+            out.append('.');
+            appendDigits(out, text, dot, first + point, last + 1);
+        }
+        return out;
+    }
+
+    private static char digitAt(String text, int dot, int index) {
+        return text.charAt(index < dot ? index : index + 1);
+    }
+
+    private static void appendDigits(StringBuilder out, String text, int dot, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out.append(digitAt(text, dot, i));
+        }
+    }
+
+    static String format(BigDecimal value) {
+        if (value.signum() == 0) {
+            return "0";
+        }
+        BigDecimal stripped = value.stripTrailingZeros();
+        int exponent = stripped.precision() - stripped.scale() - 1;
+        if (exponent >= MIN_PLAIN_EXPONENT && exponent < MAX_PLAIN_EXPONENT) {
+            return stripped.toPlainString();
+        }
+        return stripped.toString();
     }
 }
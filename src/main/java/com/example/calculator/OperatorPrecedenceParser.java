@@ -0,0 +1,244 @@
+package com.example.calculator;
+
+import com.example.calculator.ExpressionParser.Token;
+import com.example.calculator.ExpressionParser.TokenType;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Iterative operator-precedence parser shared by the double and precise evaluators. Pending
+// operators, parentheses and calls live on an explicit stack capped at maxDepth, so deeply
+// nested input fails with a CalculatorException instead of overflowing the thread stack.
+// Operands and reductions are handed to a Handler as soon as they are known, which keeps the
+// left-to-right evaluation order of the former recursive-descent parser.
+//
+// Precedence, loosest first: || && (== !=) (< <= > >=) (+ -) (* / %) unary(+ -) ^ postfix(!).
+// Binary operators are left-associative except ^; unary minus binds looser than ^, so -2^2 is
+// -(2^2) while 2^-3 takes the negation as its exponent.
+final class OperatorPrecedenceParser {
+    static final int DEFAULT_MAX_DEPTH = 1_000;
+
+    interface Handler {
+        void number(Token token);
+
+        void symbol(Token token);
+
+        void call(Token name, int argCount);
+
+        void negate(Token operator);
+
+        void factorial(Token operator);
+
+        void binary(Token operator);
+    }
+
+    private static final int GROUP = 0;
+    private static final int CALL = 1;
+    private static final int NEGATE = 2;
+    private static final int BINARY = 3;
+    private static final int UNARY_PRECEDENCE = 7;
+
+    private final List<Token> tokens;
+    private final int start;
+    private final int end;
+    private final Handler handler;
+    private final int maxDepth;
+    private final EvaluationGuard guard = EvaluationGuard.current();
+    private int[] kinds = new int[16];
+    private Token[] operators = new Token[16];
+    private int[] argCounts = new int[16];
+    private int depth;
+
+    private OperatorPrecedenceParser(List<Token> tokens, int start, int end, Handler handler, int maxDepth) {
+        this.tokens = tokens;
+        this.start = start;
+        this.end = end;
+        this.handler = handler;
+        this.maxDepth = maxDepth;
+    }
+
+    // Parses the expression in tokens[start, end); tokens[end] is the terminating SEMICOLON or EOF.
+    static void parse(List<Token> tokens, int start, int end, Handler handler, int maxDepth) {
+        if (maxDepth < 1) {
+            throw new CalculatorException("Maximum nesting depth must be positive.");
+        }
+        new OperatorPrecedenceParser(tokens, start, end, handler, maxDepth).run();
+    }
+
+    private void run() {
+        boolean expectOperand = true;
+        int index = start;
+        while (true) {
+            Token token = tokens.get(index++);
+            if (expectOperand) {
+                switch (token.type) {
+                    case NUMBER:
+                        charge();
+                        handler.number(token);
+                        expectOperand = false;
+                        break;
+                    case IDENTIFIER:
+                        charge();
+                        if (tokens.get(index).type != TokenType.LPAREN) {
+                            handler.symbol(token);
+                            expectOperand = false;
+                        } else if (tokens.get(index + 1).type == TokenType.RPAREN) {
+                            index += 2;
+                            handler.call(token, 0);
+                            expectOperand = false;
+                        } else {
+                            index++;
+                            push(CALL, token);
+                        }
+                        break;
+                    case LPAREN:
+                        charge();
+                        push(GROUP, token);
+                        break;
+                    case MINUS:
+                        push(NEGATE, token);
+                        break;
+                    case PLUS:
+                        break;
+                    default:
+                        throw error(token, "Expected a number, variable, function call, or parenthesized expression.");
+                }
+                continue;
+            }
+
+            if (index > end) {
+                finish(token);
+                return;
+            }
+            int precedence = precedence(token.type);
+            if (precedence > 0) {
+                reduceWhile(precedence, token.type != TokenType.CARET);
+                push(BINARY, token);
+                expectOperand = true;
+                continue;
+            }
+            switch (token.type) {
+                case BANG:
+                    handler.factorial(token);
+                    break;
+                case COMMA:
+                    reduceWhile(0, true);
+                    if (depth == 0 || kinds[depth - 1] != CALL) {
+                        throw error(token, missingCloseMessage());
+                    }
+                    argCounts[depth - 1]++;
+                    expectOperand = true;
+                    break;
+                case RPAREN:
+                    reduceWhile(0, true);
+                    if (depth == 0) {
+                        throw error(token, "Unexpected trailing input.");
+                    }
+                    depth--;
+                    if (kinds[depth] == CALL) {
+                        handler.call(operators[depth], argCounts[depth] + 1);
+                    }
+                    operators[depth] = null;
+                    break;
+                default:
+                    throw error(token, depth == 0 ? "Unexpected trailing input." : missingCloseMessage());
+            }
+        }
+    }
+
+    private void finish(Token terminator) {
+        reduceWhile(0, true);
+        if (depth > 0) {
+            throw error(terminator, missingCloseMessage());
+        }
+    }
+
+    // Applies stacked operators that bind at least as tightly as the incoming one (strictly
+    // tighter for a right-associative operator), stopping at the innermost group or call.
+    private void reduceWhile(int precedence, boolean leftAssociative) {
+        while (depth > 0) {
+            int kind = kinds[depth - 1];
+            if (kind == GROUP || kind == CALL) {
+                return;
+            }
+            Token operator = operators[depth - 1];
+            int top = kind == NEGATE ? UNARY_PRECEDENCE : precedence(operator.type);
+            if (top < precedence || (top == precedence && !leftAssociative)) {
+                return;
+            }
+            depth--;
+            operators[depth] = null;
+            if (kind == NEGATE) {
+                handler.negate(operator);
+            } else {
+                handler.binary(operator);
+            }
+        }
+    }
+
+    private void push(int kind, Token token) {
+        if (depth == maxDepth) {
+            throw error(token, "Expression nests too deeply (max " + maxDepth + " levels).");
+        }
+        if (depth == kinds.length) {
+            int capacity = Math.min(maxDepth, depth * 2);
+            kinds = Arrays.copyOf(kinds, capacity);
+            operators = Arrays.copyOf(operators, capacity);
+            argCounts = Arrays.copyOf(argCounts, capacity);
+        }
+        kinds[depth] = kind;
+        operators[depth] = token;
+        argCounts[depth] = 0;
+        depth++;
+    }
+
+    private String missingCloseMessage() {
+        for (int i = depth - 1; i >= 0; i--) {
+            if (kinds[i] == CALL) {
+                return "Missing ')' after function arguments.";
+            }
+            if (kinds[i] == GROUP) {
+                return "Missing ')' to close expression.";
+            }
+        }
+        return "Unexpected trailing input.";
+    }
+
+    private void charge() {
+        if (guard != null) {
+            guard.charge(1L);
+        }
+    }
+
+    private static int precedence(TokenType type) {
+        switch (type) {
+            case OR_OR:
+                return 1;
+            case AND_AND:
+                return 2;
+            case EQUAL_EQUAL:
+            case BANG_EQUAL:
+                return 3;
+            case LESS:
+            case LESS_EQUAL:
+            case GREATER:
+            case GREATER_EQUAL:
+                return 4;
+            case PLUS:
+            case MINUS:
+                return 5;
+            case STAR:
+            case SLASH:
+            case PERCENT:
+                return 6;
+            case CARET:
+                return 8;
+            default:
+                return 0;
+        }
+    }
+
+    static CalculatorException error(Token token, String message) {
+        return new CalculatorException(CalculatorErrorCode.SYNTAX, message, token.position);
+    }
+}
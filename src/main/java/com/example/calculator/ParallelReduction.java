@@ -0,0 +1,177 @@
+package com.example.calculator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Pairwise reductions over a fixed split tree: blocks are halved at the midpoint down to
+// LEAF_SIZE regardless of how many workers run them, so results are bit-for-bit identical
+// for any pool parallelism (including the sequential path below PARALLEL_THRESHOLD).
+final class ParallelReduction {
+    static final int LEAF_SIZE = 1 << 11;
+    static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    private ParallelReduction() {
+    }
+
+    static double sum(double[] values) {
+        return reduce(Operation.SUM, values, ForkJoinPool.commonPool());
+    }
+
+    static double product(double[] values) {
+        return reduce(Operation.PRODUCT, values, ForkJoinPool.commonPool());
+    }
+
+    static double min(double[] values) {
+        return reduce(Operation.MIN, values, ForkJoinPool.commonPool());
+    }
+
+    static double max(double[] values) {
+        return reduce(Operation.MAX, values, ForkJoinPool.commonPool());
+    }
+
+    static double reduce(Operation operation, double[] values, ForkJoinPool pool) {
+        if (values.length == 0) {
+            return operation.identity();
+        }
+        ReductionTask task = new ReductionTask(operation, values, 0, values.length, EvaluationGuard.current());
+        if (values.length < PARALLEL_THRESHOLD) {
+            return task.compute();
+        }
+        return pool.invoke(task);
+    }
+
+    enum Operation {
+        SUM {
+            @Override
+            double identity() {
+                return 0d;
+            }
+
+            @Override
+            double leaf(double[] values, int from, int to) {
+                double sum = 0d;
+                double compensation = 0d;
+                for (int i = from; i < to; i++) {
+                    double value = values[i];
+                    double total = sum + value;
+                    if (Math.abs(sum) >= Math.abs(value)) {
+                        compensation += (sum - total) + value;
+                    } else {
+                        compensation += (value - total) + sum;
+                    }
+                    sum = total;
+                }
+                return Double.isFinite(sum) ? sum + compensation : sum;
+            }
+
+            @Override
+            double combine(double left, double right) {
+                return left + right;
+            }
+        },
+        PRODUCT {
+            @Override
+            double identity() {
+                return 1d;
+            }
+
+            @Override
+            double leaf(double[] values, int from, int to) {
+                double product = 1d;
+                for (int i = from; i < to; i++) {
+                    product *= values[i];
+                }
+                return product;
+            }
+
+            @Override
+            double combine(double left, double right) {
+                return left * right;
+            }
+        },
+        MIN {
+            @Override
+            double identity() {
+                return Double.POSITIVE_INFINITY;
+            }
+
+            @Override
+            double leaf(double[] values, int from, int to) {
+                double min = Double.POSITIVE_INFINITY;
+                for (int i = from; i < to; i++) {
+                    min = Math.min(min, values[i]);
+                }
+                return min;
+            }
+
+            @Override
+            double combine(double left, double right) {
+                return Math.min(left, right);
+            }
+        },
+        MAX {
+            @Override
+            double identity() {
+                return Double.NEGATIVE_INFINITY;
+            }
+
+            @Override
+            double leaf(double[] values, int from, int to) {
+                double max = Double.NEGATIVE_INFINITY;
+                for (int i = from; i < to; i++) {
+                    max = Math.max(max, values[i]);
+                }
+                return max;
+            }
+
+            @Override
+            double combine(double left, double right) {
+                return Math.max(left, right);
+            }
+        };
+
+        abstract double identity();
+
+        abstract double leaf(double[] values, int from, int to);
+
+        abstract double combine(double left, double right);
+    }
+
+    private static final class ReductionTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final Operation operation;
+        private final double[] values;
+        private final int from;
+        private final int to;
+        // Captured on the calling thread; pool workers do not see its thread-local guard.
+        private final EvaluationGuard guard;
+
+        private ReductionTask(Operation operation, double[] values, int from, int to, EvaluationGuard guard) {
+            this.operation = operation;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.guard = guard;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= LEAF_SIZE) {
+                if (guard != null) {
+                    guard.check();
+                }
+                return operation.leaf(values, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ReductionTask left = new ReductionTask(operation, values, from, middle, guard);
+            ReductionTask right = new ReductionTask(operation, values, middle, to, guard);
+            if (to - from < PARALLEL_THRESHOLD) {
+                return operation.combine(left.compute(), right.compute());
+            }
+            right.fork();
+            double leftResult = left.compute();
+            return operation.combine(leftResult, right.join());
+        }
+    }
+}
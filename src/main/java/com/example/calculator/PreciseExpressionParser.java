@@ -0,0 +1,195 @@
+package com.example.calculator;
+
+import com.example.calculator.ExpressionParser.Token;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+
+final class PreciseExpressionParser {
+    private static final int MAX_INTEGER_EXPONENT = 999_999_999;
+
+    @FunctionalInterface
+    interface SymbolResolver {
+        BigDecimal resolve(String symbol);
+    }
+
+    @FunctionalInterface
+    interface FunctionResolver {
+        BigDecimal invoke(String functionName, List<BigDecimal> args);
+    }
+
+    private final SymbolResolver symbolResolver;
+    private final FunctionResolver functionResolver;
+    private final MathContext mathContext;
+    private final List<Token> tokens;
+    private final int start;
+    private final int end;
+    private final int maxDepth;
+
+    PreciseExpressionParser(
+            String input,
+            MathContext mathContext,
+            SymbolResolver symbolResolver,
+            FunctionResolver functionResolver
+    ) {
+        this(input, mathContext, symbolResolver, functionResolver, OperatorPrecedenceParser.DEFAULT_MAX_DEPTH);
+    }
+
+    PreciseExpressionParser(
+            String input,
+            MathContext mathContext,
+            SymbolResolver symbolResolver,
+            FunctionResolver functionResolver,
+            int maxDepth
+    ) {
+        this(ExpressionParser.tokenize(input), 0, -1, mathContext, symbolResolver, functionResolver, maxDepth);
+    }
+
+    // Parses tokens[start, end) of an already tokenized line; end < 0 means up to EOF.
+    PreciseExpressionParser(
+            List<Token> tokens,
+            int start,
+            int end,
+            MathContext mathContext,
+            SymbolResolver symbolResolver,
+            FunctionResolver functionResolver,
+            int maxDepth
+    ) {
+        this.symbolResolver = symbolResolver;
+        this.functionResolver = functionResolver;
+        this.mathContext = mathContext;
+        this.tokens = tokens;
+        this.start = start;
+        this.end = end < 0 ? tokens.size() - 1 : end;
+        this.maxDepth = maxDepth;
+    }
+
+    BigDecimal parse() {
+        Evaluator evaluator = new Evaluator();
+        try {
+            OperatorPrecedenceParser.parse(tokens, start, end, evaluator, maxDepth);
+        } catch (ArithmeticException ex) {
+            throw new CalculatorException("Arithmetic error: " + ex.getMessage(), ex);
+        }
+        return evaluator.values.get(0).round(mathContext);
+    }
+
+    static BigDecimal power(BigDecimal base, BigDecimal exponent, MathContext mathContext) {
+        if (exponent.signum() == 0 || exponent.stripTrailingZeros().scale() <= 0) {
+            if (exponent.abs().compareTo(BigDecimal.valueOf(MAX_INTEGER_EXPONENT)) <= 0) {
+                if (base.signum() == 0 && exponent.signum() < 0) {
+                    throw new CalculatorException("Division by zero.");
+                }
+                return base.pow(exponent.intValueExact(), mathContext);
+            }
+        }
+        double result = Math.pow(base.doubleValue(), exponent.doubleValue());
+        if (!Double.isFinite(result)) {
+            throw new CalculatorException("Power result is not finite.");
+        }
+        return new BigDecimal(result, mathContext);
+    }
+
+    private final class Evaluator implements OperatorPrecedenceParser.Handler {
+        private final ArrayList<BigDecimal> values = new ArrayList<>();
+
+        @Override
+        public void number(Token token) {
+            values.add(new BigDecimal(token.text));
+        }
+
+        @Override
+        public void symbol(Token token) {
+            values.add(symbolResolver.resolve(token.text));
+        }
+
+        @Override
+        public void call(Token name, int argCount) {
+            List<BigDecimal> tail = values.subList(values.size() - argCount, values.size());
+            List<BigDecimal> args = new ArrayList<>(tail);
+            tail.clear();
+            values.add(functionResolver.invoke(name.text, args));
+        }
+
+        @Override
+        public void negate(Token operator) {
+            replaceTop(top().negate());
+        }
+
+        @Override
+        public void factorial(Token operator) {
+            int n = PreciseMath.requireNonNegativeInt(top(), "Factorial input", PreciseMath.MAX_FACTORIAL);
+            replaceTop(PreciseMath.toDecimal(PreciseMath.factorial(n), mathContext));
+        }
+
+        @Override
+        public void binary(Token operator) {
+            BigDecimal rhs = values.remove(values.size() - 1);
+            BigDecimal lhs = top();
+            BigDecimal value;
+            switch (operator.type) {
+                case OR_OR:
+                    value = PreciseMath.fromBoolean(PreciseMath.toBoolean(lhs) || PreciseMath.toBoolean(rhs));
+                    break;
+                case AND_AND:
+                    value = PreciseMath.fromBoolean(PreciseMath.toBoolean(lhs) && PreciseMath.toBoolean(rhs));
+                    break;
+                case EQUAL_EQUAL:
+                    value = PreciseMath.fromBoolean(lhs.compareTo(rhs) == 0);
+                    break;
+                case BANG_EQUAL:
+                    value = PreciseMath.fromBoolean(lhs.compareTo(rhs) != 0);
+                    break;
+                case GREATER:
+                    value = PreciseMath.fromBoolean(lhs.compareTo(rhs) > 0);
+                    break;
+                case GREATER_EQUAL:
+                    value = PreciseMath.fromBoolean(lhs.compareTo(rhs) >= 0);
+                    break;
+                case LESS:
+                    value = PreciseMath.fromBoolean(lhs.compareTo(rhs) < 0);
+                    break;
+                case LESS_EQUAL:
+                    value = PreciseMath.fromBoolean(lhs.compareTo(rhs) <= 0);
+                    break;
+                case PLUS:
+                    value = lhs.add(rhs, mathContext);
+                    break;
+                case MINUS:
+                    value = lhs.subtract(rhs, mathContext);
+                    break;
+                case STAR:
+                    value = lhs.multiply(rhs, mathContext);
+                    break;
+                case SLASH:
+                    if (rhs.signum() == 0) {
+                        throw new CalculatorException(CalculatorErrorCode.DIVISION_BY_ZERO, null, operator.position);
+                    }
+                    value = lhs.divide(rhs, mathContext);
+                    break;
+                case PERCENT:
+                    if (rhs.signum() == 0) {
+                        throw new CalculatorException(CalculatorErrorCode.MODULO_BY_ZERO, null, operator.position);
+                    }
+                    value = lhs.remainder(rhs, mathContext);
+                    break;
+                case CARET:
+                    value = power(lhs, rhs, mathContext);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected operator " + operator.type);
+            }
+            replaceTop(value);
+        }
+
+        private BigDecimal top() {
+            return values.get(values.size() - 1);
+        }
+
+        private void replaceTop(BigDecimal value) {
+            values.set(values.size() - 1, value);
+        }
+    }
+}
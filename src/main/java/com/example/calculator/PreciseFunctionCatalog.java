@@ -0,0 +1,92 @@
+package com.example.calculator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+final class PreciseFunctionCatalog {
+    private static final Map<String, PreciseFunction> FUNCTIONS = Collections.unmodifiableMap(build());
+
+    private PreciseFunctionCatalog() {
+    }
+
+    static PreciseFunction get(String name) {
+        return FUNCTIONS.get(name);
+    }
+
+    private static Map<String, PreciseFunction> build() {
+        Map<String, PreciseFunction> functions = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        functions.put("abs", (a, mc) -> a.get(0).abs(mc));
+        functions.put("sign", (a, mc) -> BigDecimal.valueOf(a.get(0).signum()));
+        functions.put("floor", (a, mc) -> a.get(0).setScale(0, RoundingMode.FLOOR));
+        functions.put("ceil", (a, mc) -> a.get(0).setScale(0, RoundingMode.CEILING));
+        functions.put("round", (a, mc) -> a.get(0).setScale(0, RoundingMode.HALF_EVEN));
+        functions.put("sqrt", (a, mc) -> PreciseMath.sqrt(a.get(0), mc));
+        functions.put("not", (a, mc) -> PreciseMath.fromBoolean(!PreciseMath.toBoolean(a.get(0))));
+        functions.put("if", (a, mc) -> PreciseMath.toBoolean(a.get(0)) ? a.get(1) : a.get(2));
+        functions.put("between", (a, mc) ->
+                PreciseMath.fromBoolean(a.get(0).compareTo(a.get(1)) >= 0 && a.get(0).compareTo(a.get(2)) <= 0));
+        functions.put("mod", (a, mc) -> {
+            if (a.get(1).signum() == 0) {
+                throw new CalculatorException("mod(a, b): b cannot be zero.");
+            }
+            return a.get(0).remainder(a.get(1), mc);
+        });
+        functions.put("min", (a, mc) -> {
+            BigDecimal min = a.get(0);
+            for (BigDecimal value : a) {
+                min = min.min(value);
+            }
+            return min;
+        });
+        functions.put("max", (a, mc) -> {
+            BigDecimal max = a.get(0);
+            for (BigDecimal value : a) {
+                max = max.max(value);
+            }
+            return max;
+        });
+        functions.put("sum", (a, mc) -> sum(a, mc));
+        functions.put("avg", (a, mc) -> sum(a, mc).divide(BigDecimal.valueOf(a.size()), mc));
+        functions.put("prod", (a, mc) -> {
+            BigDecimal product = BigDecimal.ONE;
+            for (BigDecimal value : a) {
+                product = product.multiply(value, mc);
+            }
+            return product;
+        });
+
+        functions.put("fact", (a, mc) -> PreciseMath.toDecimal(PreciseMath.factorial(
+                PreciseMath.requireNonNegativeInt(a.get(0), "Factorial input", PreciseMath.MAX_FACTORIAL)), mc));
+        functions.put("fib", (a, mc) -> PreciseMath.toDecimal(PreciseMath.fibonacci(
+                PreciseMath.requireNonNegativeInt(a.get(0), "fib n", PreciseMath.MAX_FIBONACCI)), mc));
+        functions.put("perm", (a, mc) -> PreciseMath.toDecimal(PreciseMath.permutation(
+                PreciseMath.requireNonNegativeInt(a.get(0), "perm n", PreciseMath.MAX_COMBINATORIC_N),
+                PreciseMath.requireNonNegativeInt(a.get(1), "perm k", PreciseMath.MAX_COMBINATORIC_N)), mc));
+        functions.put("comb", (a, mc) -> PreciseMath.toDecimal(PreciseMath.combination(
+                PreciseMath.requireNonNegativeInt(a.get(0), "comb n", PreciseMath.MAX_COMBINATORIC_N),
+                PreciseMath.requireNonNegativeInt(a.get(1), "comb k", PreciseMath.MAX_COMBINATORIC_N)), mc));
+        functions.put("gcd", (a, mc) -> PreciseMath.toDecimal(PreciseMath.gcdOf(a), mc));
+        functions.put("lcm", (a, mc) -> PreciseMath.toDecimal(PreciseMath.lcmOf(a), mc));
+
+        return functions;
+    }
+
+    private static BigDecimal sum(List<BigDecimal> values, MathContext mc) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal value : values) {
+            total = total.add(value, mc);
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    interface PreciseFunction {
+        BigDecimal apply(List<BigDecimal> args, MathContext mathContext);
+    }
+}
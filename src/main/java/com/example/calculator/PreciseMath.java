@@ -0,0 +1,326 @@
+package com.example.calculator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+final class PreciseMath {
+    static final int MAX_FACTORIAL = 500_000;
+    static final int MAX_FIBONACCI = 10_000_000;
+    static final int MAX_COMBINATORIC_N = 2_000_000;
+    private static final int PRODUCT_TREE_LEAF = 16;
+    private static final int GUARD_DIGITS = 10;
+    // A series term costs a full-width divide, so it is charged one step per this many digits.
+    private static final int DIGITS_PER_TERM_STEP = 64;
+    private static final double LOG2_10 = Math.log(10d) / Math.log(2d);
+    // Only the most precise value computed so far is kept; lower precisions round it down.
+    private static final AtomicReference<CachedConstant> PI_CACHE = new AtomicReference<>();
+    private static final AtomicReference<CachedConstant> E_CACHE = new AtomicReference<>();
+
+    private PreciseMath() {
+    }
+
+    static BigInteger requireInteger(BigDecimal value, String label) {
+        try {
+            return value.toBigIntegerExact();
+        } catch (ArithmeticException ex) {
+            throw new CalculatorException(label + " must be an integer.");
+        }
+    }
+
+    static int requireNonNegativeInt(BigDecimal value, String label, int max) {
+        BigInteger integer = requireInteger(value, label);
+        if (integer.signum() < 0) {
+            throw new CalculatorException(label + " must be non-negative.");
+        }
+        if (integer.compareTo(BigInteger.valueOf(max)) > 0) {
+            throw new CalculatorException(label + " too large (max " + max + ").");
+        }
+        return integer.intValue();
+    }
+
+    static boolean toBoolean(BigDecimal value) {
+        return value.signum() != 0;
+    }
+
+    static BigDecimal fromBoolean(boolean value) {
+        return value ? BigDecimal.ONE : BigDecimal.ZERO;
+    }
+
+    // Luschny's split-recursive factorial: n! is assembled from products of odd numbers over
+    // the ranges (n / 2^(i+1), n / 2^i], with the power of two applied as a single shift.
+    static BigInteger factorial(int n) {
+        if (n < 2) {
+            return BigInteger.ONE;
+        }
+        OddProducts odd = new OddProducts();
+        BigInteger partial = BigInteger.ONE;
+        BigInteger result = BigInteger.ONE;
+        int log2n = 31 - Integer.numberOfLeadingZeros(n);
+        int high = 1;
+        int h = 0;
+        int shift = 0;
+        while (h != n) {
+            shift += h;
+            h = n >>> log2n--;
+            int low = high;
+            high = (h - 1) | 1;
+            int length = (high - low) / 2;
+            if (length > 0) {
+                EvaluationGuard.checkpoint(length);
+                partial = partial.multiply(odd.next(length));
+                result = result.multiply(partial);
+            }
+        }
+        return result.shiftLeft(shift);
+    }
+
+    static BigDecimal toDecimal(BigInteger value, MathContext mc) {
+        int keepBits = (int) Math.ceil((mc.getPrecision() + GUARD_DIGITS) * LOG2_10) + Long.SIZE;
+        int shift = value.bitLength() - keepBits;
+        if (shift <= Long.SIZE) {
+            return new BigDecimal(value, mc);
+        }
+        // Rounding a huge integer in decimal costs a full base conversion; truncating in binary
+        // first keeps GUARD_DIGITS + 64 bits beyond the requested precision.
+        MathContext working = new MathContext(mc.getPrecision() + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+        BigDecimal mantissa = new BigDecimal(value.abs().shiftRight(shift), working);
+        BigDecimal result = mantissa.multiply(BigDecimal.valueOf(2).pow(shift, working), working).round(mc);
+        return value.signum() < 0 ? result.negate() : result;
+    }
+
+    // Balanced product tree over the integers in [from, to]; keeps operand sizes matched so
+    // BigInteger can use Karatsuba/Toom-Cook on the large multiplications.
+    static BigInteger product(long from, long to) {
+        if (from > to) {
+            return BigInteger.ONE;
+        }
+        if (to - from < PRODUCT_TREE_LEAF) {
+            EvaluationGuard.checkpoint(to - from + 1);
+            BigInteger result = BigInteger.valueOf(from);
+            for (long i = from + 1; i <= to; i++) {
+                result = result.multiply(BigInteger.valueOf(i));
+            }
+            return result;
+        }
+        long middle = (from + to) >>> 1;
+        return product(from, middle).multiply(product(middle + 1, to));
+    }
+
+    static BigInteger permutation(int n, int k) {
+        if (k > n) {
+            throw new CalculatorException("perm(n, k) requires k <= n.");
+        }
+        return product((long) n - k + 1, n);
+    }
+
+    // Exponent of each prime p in C(n, k) follows from Legendre's formula; the prime powers
+    // are then multiplied with a product tree.
+    static BigInteger combination(int n, int k) {
+        if (k > n) {
+            throw new CalculatorException("comb(n, k) requires k <= n.");
+        }
+        k = Math.min(k, n - k);
+        if (k == 0) {
+            return BigInteger.ONE;
+        }
+        EvaluationGuard.checkpoint(n);
+        BitSet composite = new BitSet(n + 1);
+        BigInteger[] factors = new BigInteger[n];
+        int count = 0;
+        for (int p = 2; p <= n; p = composite.nextClearBit(p + 1)) {
+            if ((long) p * p <= n) {
+                for (int multiple = p * p; multiple <= n; multiple += p) {
+                    composite.set(multiple);
+                }
+            }
+            int exponent = 0;
+            for (long power = p; power <= n; power *= p) {
+                exponent += (int) (n / power - k / power - (n - k) / power);
+            }
+            if (exponent > 0) {
+                factors[count++] = BigInteger.valueOf(p).pow(exponent);
+            }
+        }
+        return productOf(factors, 0, count);
+    }
+
+    private static final class OddProducts {
+        private long next = 1;
+
+        BigInteger next(int count) {
+            int half = count / 2;
+            if (half == 0) {
+                next += 2;
+                return BigInteger.valueOf(next);
+            }
+            if (count == 2) {
+                long first = next + 2;
+                long second = next + 4;
+                next = second;
+                return BigInteger.valueOf(first * second);
+            }
+            return next(count - half).multiply(next(half));
+        }
+    }
+
+    private static BigInteger productOf(BigInteger[] factors, int from, int to) {
+        if (to - from == 0) {
+            return BigInteger.ONE;
+        }
+        if (to - from == 1) {
+            return factors[from];
+        }
+        int middle = (from + to) >>> 1;
+        return productOf(factors, from, middle).multiply(productOf(factors, middle, to));
+    }
+
+    static BigInteger fibonacci(int n) {
+        BigInteger a = BigInteger.ZERO;
+        BigInteger b = BigInteger.ONE;
+        for (int bit = 31 - Integer.numberOfLeadingZeros(n); bit >= 0; bit--) {
+            BigInteger c = a.multiply(b.shiftLeft(1).subtract(a));
+            BigInteger d = a.multiply(a).add(b.multiply(b));
+            if (((n >>> bit) & 1) == 0) {
+                a = c;
+                b = d;
+            } else {
+                a = d;
+                b = c.add(d);
+            }
+        }
+        return a;
+    }
+
+    static BigInteger gcdOf(List<BigDecimal> values) {
+        BigInteger result = requireInteger(values.get(0), "gcd argument");
+        for (int i = 1; i < values.size(); i++) {
+            result = result.gcd(requireInteger(values.get(i), "gcd argument"));
+        }
+        return result.abs();
+    }
+
+    static BigInteger lcmOf(List<BigDecimal> values) {
+        BigInteger result = requireInteger(values.get(0), "lcm argument").abs();
+        for (int i = 1; i < values.size(); i++) {
+            BigInteger current = requireInteger(values.get(i), "lcm argument").abs();
+            if (result.signum() == 0 || current.signum() == 0) {
+                result = BigInteger.ZERO;
+                continue;
+            }
+            result = result.divide(result.gcd(current)).multiply(current);
+        }
+        return result;
+    }
+
+    static BigDecimal sqrt(BigDecimal value, MathContext mc) {
+        if (value.signum() < 0) {
+            throw new CalculatorException("sqrt of a negative number is not real.");
+        }
+        if (value.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        MathContext working = new MathContext(mc.getPrecision() + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+        int exponent = value.precision() - value.scale() - 1;
+        int shift = exponent - (exponent % 2);
+        BigDecimal scaled = value.movePointLeft(shift);
+        BigDecimal x = BigDecimal.valueOf(Math.sqrt(scaled.doubleValue()));
+        BigDecimal two = BigDecimal.valueOf(2);
+        for (int digits = 15; digits < working.getPrecision(); digits *= 2) {
+            x = x.add(scaled.divide(x, working)).divide(two, working);
+        }
+        x = x.add(scaled.divide(x, working)).divide(two, working);
+        return x.movePointRight(shift / 2).round(mc);
+    }
+
+    // Machin's formula, pi = 16 atan(1/5) - 4 atan(1/239), summed in fixed point.
+    static BigDecimal pi(MathContext mc) {
+        return cached(PI_CACHE, mc, working -> {
+            int scale = working.getPrecision();
+            BigInteger atan5 = arctanOfInverse(5, scale);
+            BigInteger atan239 = arctanOfInverse(239, scale);
+            return new BigDecimal(atan5.shiftLeft(4).subtract(atan239.shiftLeft(2)), scale);
+        });
+    }
+
+    static BigDecimal e(MathContext mc) {
+        return cached(E_CACHE, mc, working -> {
+            int scale = working.getPrecision();
+            BigInteger term = BigInteger.TEN.pow(scale);
+            BigInteger sum = term;
+            long termSteps = termSteps(working);
+            for (int k = 1; term.signum() > 0; k++) {
+                EvaluationGuard.checkpoint(termSteps);
+                term = term.divide(BigInteger.valueOf(k));
+                sum = sum.add(term);
+            }
+            return new BigDecimal(sum, scale);
+        });
+    }
+
+    // Values are kept at the working precision, guard digits included, so rounding a cached
+    // value down to a smaller precision matches computing it afresh.
+    private static BigDecimal cached(AtomicReference<CachedConstant> cache, MathContext mc,
+                                     Function<MathContext, BigDecimal> series) {
+        CachedConstant best = cache.get();
+        if (best == null || best.digits < mc.getPrecision()) {
+            MathContext working = new MathContext(mc.getPrecision() + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+            CachedConstant computed = new CachedConstant(mc.getPrecision(), series.apply(working));
+            best = cache.accumulateAndGet(computed, (current, candidate) ->
+                    current == null || candidate.digits > current.digits ? candidate : current);
+        }
+        return best.value.round(mc);
+    }
+
+    static BigDecimal constant(String name, double fallback, MathContext mc) {
+        if ("pi".equalsIgnoreCase(name)) {
+            return pi(mc);
+        }
+        if ("tau".equalsIgnoreCase(name)) {
+            return pi(mc).multiply(BigDecimal.valueOf(2), mc);
+        }
+        if ("e".equalsIgnoreCase(name)) {
+            return e(mc);
+        }
+        if ("phi".equalsIgnoreCase(name)) {
+            return BigDecimal.ONE.add(sqrt(BigDecimal.valueOf(5), mc)).divide(BigDecimal.valueOf(2), mc);
+        }
+        return BigDecimal.valueOf(fallback);
+    }
+
+    // atan(1/inverse) scaled by 10^scale. Every term is a big number divided by a small one,
+    // so a term costs time linear in the digit count; each truncation loses at most one unit
+    // in the last place, which the caller's guard digits absorb.
+    private static BigInteger arctanOfInverse(int inverse, int scale) {
+        BigInteger inverseSquared = BigInteger.valueOf((long) inverse * inverse);
+        BigInteger power = BigInteger.TEN.pow(scale).divide(BigInteger.valueOf(inverse));
+        BigInteger sum = power;
+        long termSteps = 1L + scale / DIGITS_PER_TERM_STEP;
+        for (int k = 1; power.signum() > 0; k++) {
+            EvaluationGuard.checkpoint(termSteps);
+            power = power.divide(inverseSquared);
+            BigInteger term = power.divide(BigInteger.valueOf(2L * k + 1));
+            sum = (k % 2 == 1) ? sum.subtract(term) : sum.add(term);
+        }
+        return sum;
+    }
+
+    private static long termSteps(MathContext mc) {
+        return 1L + mc.getPrecision() / DIGITS_PER_TERM_STEP;
+    }
+
+    private static final class CachedConstant {
+        private final int digits;
+        private final BigDecimal value;
+
+        private CachedConstant(int digits, BigDecimal value) {
+            this.digits = digits;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.calculator;
+
+import java.util.List;
+
+// Single-pass moments (Welford/Terriberry update) with a Neumaier-compensated sum.
+final class RunningStatistics {
+    private static final int CHECKPOINT_MASK = 0xFFF;
+
+    private long count;
+    private double sum;
+    private double compensation;
+    private double mean;
+    private double m2;
+    private double m3;
+    private double m4;
+
+    static RunningStatistics of(double[] values) {
+        RunningStatistics statistics = new RunningStatistics();
+        for (int i = 0; i < values.length; i++) {
+            statistics.add(values[i]);
+            if ((i & CHECKPOINT_MASK) == CHECKPOINT_MASK) {
+                EvaluationGuard.checkpoint();
+            }
+        }
+        return statistics;
+    }
+
+    static RunningStatistics of(List<Double> values) {
+        RunningStatistics statistics = new RunningStatistics();
+        for (int i = 0; i < values.size(); i++) {
+            statistics.add(values.get(i));
+            if ((i & CHECKPOINT_MASK) == CHECKPOINT_MASK) {
+                EvaluationGuard.checkpoint();
+            }
+        }
+        return statistics;
+    }
+
+    void add(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - total) + value;
+        } else {
+            compensation += (value - total) + sum;
+        }
+        sum = total;
+
+        long previous = count;
+        count++;
+        double delta = value - mean;
+        double deltaN = delta / count;
+        double deltaN2 = deltaN * deltaN;
+        double term = delta * deltaN * previous;
+        mean += deltaN;
+        m4 += term * deltaN2 * ((double) count * count - 3d * count + 3d) + 6d * deltaN2 * m2 - 4d * deltaN * m3;
+        m3 += term * deltaN * (count - 2d) - 3d * deltaN * m2;
+        m2 += term;
+    }
+
+    long count() {
+        return count;
+    }
+
+    double sum() {
+        return Double.isFinite(sum) ? sum + compensation : sum;
+    }
+
+    double mean() {
+        return sum() / count;
+    }
+
+    double populationVariance() {
+        return m2 / count;
+    }
+
+    double sampleVariance() {
+        if (count < 2) {
+            throw new CalculatorException("Sample variance requires at least 2 values.");
+        }
+        return m2 / (count - 1);
+    }
+
+    double skewness() {
+        requireSpread("skew");
+        return Math.sqrt((double) count) * m3 / Math.pow(m2, 1.5d);
+    }
+
+    double excessKurtosis() {
+        requireSpread("kurt");
+        return count * m4 / (m2 * m2) - 3d;
+    }
+
+    private void requireSpread(String name) {
+        if (m2 == 0d) {
+            throw new CalculatorException(name + " is undefined when all values are equal.");
+        }
+    }
+}
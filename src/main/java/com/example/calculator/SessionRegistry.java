@@ -0,0 +1,191 @@
+package com.example.calculator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// Hosts many named sessions in one JVM. Each session is capped (variables, history), carries an
+// approximate retained-bytes figure refreshed after every use, and is evicted once idle past the
+// TTL. With a spill directory an evicted session is written to disk and resumed transparently
+// on its next use; without one it is simply dropped.
+final class SessionRegistry {
+    private final long idleTtlNanos;
+    private final int variableLimit;
+    private final int historyLimit;
+    private final Path spillDirectory;
+    private final LongSupplier nanoClock;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    SessionRegistry(long idleTtlMillis, int variableLimit, int historyLimit, Path spillDirectory, LongSupplier nanoClock) {
+        if (idleTtlMillis <= 0) {
+            throw new CalculatorException("Idle TTL must be positive.");
+        }
+        this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMillis);
+        this.variableLimit = variableLimit;
+        this.historyLimit = historyLimit;
+        this.spillDirectory = spillDirectory;
+        this.nanoClock = nanoClock;
+    }
+
+    SessionRegistry(long idleTtlMillis, int variableLimit, int historyLimit) {
+        this(idleTtlMillis, variableLimit, historyLimit, null, System::nanoTime);
+    }
+
+    // The action runs under the session's monitor, so one session is never used by two threads
+    // at once and eviction cannot pull it away mid-call.
+    <T> T withSession(String id, Function<CalculatorCommandProcessor, T> action) {
+        while (true) {
+            Session session = sessions.computeIfAbsent(id, this::open);
+            synchronized (session) {
+                if (session.evicted) {
+                    continue;
+                }
+                try {
+                    return action.apply(session.processor);
+                } finally {
+                    session.lastUsedNanos = nanoClock.getAsLong();
+                    session.retainedBytes = session.processor.estimateRetainedBytes();
+                }
+            }
+        }
+    }
+
+    int evictIdle() {
+        long now = nanoClock.getAsLong();
+        int evicted = 0;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            synchronized (session) {
+                if (session.evicted || now - session.lastUsedNanos < idleTtlNanos) {
+                    continue;
+                }
+                if (spillDirectory != null && !spill(entry.getKey(), session)) {
+                    continue;
+                }
+                session.evicted = true;
+                sessions.remove(entry.getKey(), session);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    boolean remove(String id) {
+        Session session = sessions.remove(id);
+        if (session != null) {
+            synchronized (session) {
+                session.evicted = true;
+            }
+        }
+        boolean spilled = false;
+        if (spillDirectory != null) {
+            try {
+                spilled = Files.deleteIfExists(spillFile(id));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return session != null || spilled;
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    boolean isResident(String id) {
+        return sessions.containsKey(id);
+    }
+
+    long retainedBytes(String id) {
+        Session session = sessions.get(id);
+        return session == null ? 0L : session.retainedBytes;
+    }
+
+    long retainedBytes() {
+        long total = 0;
+        for (Session session : sessions.values()) {
+            total += session.retainedBytes;
+        }
+        return total;
+    }
+
+    private Session open(String id) {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setVariableLimit(variableLimit);
+        Session session = new Session(new CalculatorCommandProcessor(engine, historyLimit), nanoClock.getAsLong());
+        if (spillDirectory != null) {
+            resume(id, session);
+        }
+        session.retainedBytes = session.processor.estimateRetainedBytes();
+        return session;
+    }
+
+    private boolean spill(String id, Session session) {
+        Properties state = new Properties();
+        session.processor.saveState(state);
+        try {
+            Files.createDirectories(spillDirectory);
+            Path target = spillFile(id);
+            Path temp = Files.createTempFile(spillDirectory, "session", ".tmp");
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                state.store(output, null);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException ex) {
+            System.err.println("Could not spill session " + id + ": " + ex.getMessage());
+            return false;
+        }
+    }
+
+    private void resume(String id, Session session) {
+        Path file = spillFile(id);
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties state = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            state.load(input);
+        } catch (IOException ex) {
+            throw new CalculatorException("Could not resume session " + id + ": " + ex.getMessage(), ex);
+        }
+        session.processor.restoreState(state);
+        try {
+            Files.delete(file);
+        } catch (IOException ex) {
+            // A stale file is overwritten by the next spill.
+        }
+    }
+
+    // Session ids are caller-chosen, so file names use their hex-encoded UTF-8 bytes.
+    private Path spillFile(String id) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return spillDirectory.resolve(name.append(".session").toString());
+    }
+
+    private static final class Session {
+        private final CalculatorCommandProcessor processor;
+        private long lastUsedNanos;
+        private volatile long retainedBytes;
+        private boolean evicted;
+
+        private Session(CalculatorCommandProcessor processor, long lastUsedNanos) {
+            this.processor = processor;
+            this.lastUsedNanos = lastUsedNanos;
+        }
+    }
+}
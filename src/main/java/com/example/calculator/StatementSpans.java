@@ -0,0 +1,71 @@
+package com.example.calculator;
+
+import java.util.Arrays;
+
+// Statements of one input line as the engine split them: the trimmed text that was evaluated
+// plus its [start, end) offsets in the original input. Filled during evaluation so callers can
+// pair results with statements without splitting the line again. Only offsets are recorded;
+// the text is cut from the input when asked for, so filling a reused instance allocates nothing.
+public final class StatementSpans {
+    private String input;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int[] firstTokens = new int[8];
+    private int[] endTokens = new int[8];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public String getText(int index) {
+        checkIndex(index);
+        return input.substring(starts[index], ends[index]);
+    }
+
+    public int getStart(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    public int getEnd(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    // Token range [firstToken, endToken) of the statement; endToken is its ';' or EOF token.
+    int getFirstToken(int index) {
+        return firstTokens[index];
+    }
+
+    int getEndToken(int index) {
+        return endTokens[index];
+    }
+
+    void clear() {
+        input = null;
+        size = 0;
+    }
+
+    void add(String input, int start, int end, int firstToken, int endToken) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            firstTokens = Arrays.copyOf(firstTokens, capacity);
+            endTokens = Arrays.copyOf(endTokens, capacity);
+        }
+        this.input = input;
+        starts[size] = start;
+        ends[size] = end;
+        firstTokens[size] = firstToken;
+        endTokens[size] = endToken;
+        size++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.calculator;
 
+import com.example.calculator.ExpressionParser.Token;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,44 +10,65 @@ final class StatementSplitter {
     }
 
     static List<String> split(String input) {
-        List<String> statements = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
+        StatementSpans spans = new StatementSpans();
+        split(input, spans);
+        List<String> statements = new ArrayList<>(spans.size());
+        for (int i = 0; i < spans.size(); i++) {
+            statements.add(spans.getText(i));
+        }
+        return statements;
+    }
+
+    static List<Token> split(String input, StatementSpans spans) {
+        List<Token> tokens = ExpressionParser.tokenize(input);
+        split(input, tokens, spans);
+        return tokens;
+    }
+
+    // Clears spans and records each non-empty statement between top-level ';' tokens. Parentheses
+    // must balance across the whole line, so no statement runs when any of them is malformed.
+    static void split(String input, List<Token> tokens, StatementSpans spans) {
+        spans.clear();
         int depth = 0;
+        int first = 0;
+        int openPosition = -1;
 
-        for (int i = 0; i < input.length(); i++) {
-            char c = input.charAt(i);
-            if (c == '(') {
-                depth++;
-                current.append(c);
-                continue;
-            }
-            if (c == ')') {
-                depth--;
-                if (depth < 0) {
-                    throw new CalculatorException("Unmatched ')' near position " + i);
-                }
-                current.append(c);
-                continue;
-            }
-            if (c == ';' && depth == 0) {
-                addIfNotBlank(statements, current.toString());
-                current.setLength(0);
-                continue;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            switch (token.type) {
+                case LPAREN:
+                    if (depth++ == 0) {
+                        openPosition = token.position;
+                    }
+                    break;
+                case RPAREN:
+                    depth--;
+                    if (depth < 0) {
+                        throw new CalculatorException(CalculatorErrorCode.SYNTAX, "Unmatched ')'.", token.position);
+                    }
+                    break;
+                case SEMICOLON:
+                    if (depth == 0) {
+                        addIfNotEmpty(spans, input, tokens, first, i);
+                        first = i + 1;
+                    }
+                    break;
+                case EOF:
+                    if (depth != 0) {
+                        throw new CalculatorException(CalculatorErrorCode.SYNTAX, "Unmatched '(' in expression.", openPosition);
+                    }
+                    addIfNotEmpty(spans, input, tokens, first, i);
+                    break;
+                default:
+                    break;
             }
-            current.append(c);
         }
-
-        if (depth != 0) {
-            throw new CalculatorException("Unmatched '(' in expression.");
-        }
-        addIfNotBlank(statements, current.toString());
-        return statements;
     }
 
-    private static void addIfNotBlank(List<String> statements, String statement) {
-        String trimmed = statement.trim();
-        if (!trimmed.isEmpty()) {
-            statements.add(trimmed);
+    private static void addIfNotEmpty(StatementSpans spans, String input, List<Token> tokens, int first, int end) {
+        if (first < end) {
+            Token last = tokens.get(end - 1);
+            spans.add(input, tokens.get(first).position, last.position + last.text.length(), first, end);
         }
     }
 }